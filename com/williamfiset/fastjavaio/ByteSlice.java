@@ -0,0 +1,218 @@
+/**
+ * A reusable view of a run of bytes, filled by {@link InputReader#nextToken(ByteSlice)}
+ * and {@link InputReader#nextLine(ByteSlice)}. The slice points straight into the
+ * reader's buffer, so reading a token through it copies and allocates nothing. The
+ * contents are only valid until the next call on the reader which filled it; call
+ * {@link #toString()} to keep a token.
+ *
+ * As a CharSequence each byte is one character (ISO-8859-1), and hashCode is computed
+ * over the same characters so it agrees with String.hashCode for ASCII tokens. Use
+ * {@link #toStringUtf8()} to decode text which may hold other characters.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+public final class ByteSlice implements CharSequence {
+
+  private byte[] array;
+  private ByteBuffer view;
+  private int offset, length;
+
+  /**
+   * Create an empty slice to pass to an InputReader.
+   */
+  public ByteSlice() {
+    this(new byte[0], 0, 0);
+  }
+
+  /**
+   * Create a slice of the bytes array[offset, offset + length).
+   */
+  public ByteSlice(byte[] array, int offset, int length) {
+    if (array == null || offset < 0 || length < 0 || length > array.length - offset)
+      throw new IllegalArgumentException();
+    set(array, ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN), offset, length);
+  }
+
+  // Points the slice at new bytes, given a little endian view over the same array
+  void set(byte[] array, ByteBuffer view, int offset, int length) {
+    this.array = array;
+    this.view = view;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  public boolean isEmpty() {
+    return length == 0;
+  }
+
+  // Returns the byte at index i of the slice
+  public byte byteAt(int i) {
+    if (i < 0 || i >= length) throw new IndexOutOfBoundsException();
+    return array[offset + i];
+  }
+
+  @Override
+  public char charAt(int i) {
+    return (char) (byteAt(i) & 0xff);
+  }
+
+  // Returns a new slice over the same bytes, so it is only valid as long as this one
+  @Override
+  public ByteSlice subSequence(int start, int end) {
+    if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException();
+    ByteSlice slice = new ByteSlice();
+    slice.set(array, view, offset + start, end - start);
+    return slice;
+  }
+
+  // Copies the bytes of the slice into dst starting at index off
+  public void copyTo(byte[] dst, int off) {
+    System.arraycopy(array, offset, dst, off, length);
+  }
+
+  /**
+   * Compares the slice to a string without allocating.
+   * @return Whether the slice holds exactly the characters of s.
+   */
+  public boolean contentEquals(CharSequence s) {
+    if (s.length() != length) return false;
+    for (int i = 0; i < length; i++)
+      if ((array[offset + i] & 0xff) != s.charAt(i)) return false;
+    return true;
+  }
+
+  /**
+   * Compares the slice to the start of a string without allocating.
+   * @return Whether the first characters of the slice are those of prefix.
+   */
+  public boolean startsWith(CharSequence prefix) {
+    if (prefix.length() > length) return false;
+    for (int i = 0; i < prefix.length(); i++)
+      if ((array[offset + i] & 0xff) != prefix.charAt(i)) return false;
+    return true;
+  }
+
+  /**
+   * Parses the slice as a signed decimal integer. Like {@link InputReader#nextInt()}
+   * it does not check for overflow.
+   * @throws NumberFormatException if the slice is not an integer.
+   */
+  public int parseInt() {
+    return (int) parseLong();
+  }
+
+  /**
+   * Parses the slice as a signed decimal long. Like {@link InputReader#nextLong()}
+   * it does not check for overflow.
+   * @throws NumberFormatException if the slice is not an integer.
+   */
+  public long parseLong() {
+    return parseLong(array, view, offset, offset + length);
+  }
+
+  /**
+   * Parses the bytes b[from, to) as a signed decimal long eight digits at a time, given
+   * a little endian view over b. Overflow is not checked.
+   * @throws NumberFormatException if the bytes are not an integer.
+   */
+  static long parseLong(byte[] b, ByteBuffer view, int from, int to) {
+    int i = from;
+    boolean negative = false;
+    if (i < to && (b[i] == '-' || b[i] == '+')) negative = b[i++] == '-';
+    if (i == to) throw numberFormatException(b, from, to);
+    long res = 0;
+    while (i + 8 <= to) {
+      long word = view.getLong(i);
+      if (Swar.nonDigitMask(word) != 0) break;
+      res = res * 100000000L + Swar.parseEightDigits(word);
+      i += 8;
+    }
+    // Fewer than eight digits left: parse them from one word when b has room for it
+    int n = to - i;
+    if (n > 0 && n < 8 && i + 8 <= view.limit()) {
+      long word = view.getLong(i);
+      if ((Swar.nonDigitMask(word) & (-1L >>> ((8 - n) << 3))) != 0) throw numberFormatException(b, from, to);
+      res = res * InputReader.longPowers[n] + Swar.parseDigits(word, n);
+      return negative ? -res : res;
+    }
+    for (; i < to; i++) {
+      int digit = b[i] - '0';
+      if (digit < 0 || digit > 9) throw numberFormatException(b, from, to);
+      res = res * 10 + digit;
+    }
+    return negative ? -res : res;
+  }
+
+  private static NumberFormatException numberFormatException(byte[] b, int from, int to) {
+    return new NumberFormatException("For input string: \"" + new String(b, from, to - from, StandardCharsets.ISO_8859_1) + "\"");
+  }
+
+  // Drops the spaces, tabs and other bytes <= ' ' at both ends of the slice
+  void trim() {
+    while (length > 0 && (array[offset] & 0xff) <= ' ') { offset++; length--; }
+    while (length > 0 && (array[offset + length - 1] & 0xff) <= ' ') length--;
+  }
+
+  /**
+   * Parses the slice as a double, exactly like {@link Double#parseDouble(String)}.
+   * @throws NumberFormatException if the slice is not a number.
+   */
+  public double parseDouble() {
+    return DecimalToDouble.parseDouble(array, view, offset, offset + length);
+  }
+
+  /**
+   * Parses the slice as a float, exactly like {@link Float#parseFloat(String)}.
+   * @throws NumberFormatException if the slice is not a number.
+   */
+  public float parseFloat() {
+    return DecimalToDouble.parseFloat(array, view, offset, offset + length);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof ByteSlice)) return false;
+    ByteSlice other = (ByteSlice) o;
+    if (other.length != length) return false;
+    for (int i = 0; i < length; i++)
+      if (array[offset + i] != other.array[other.offset + i]) return false;
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int h = 0;
+    for (int i = offset, end = offset + length; i < end; i++) h = 31 * h + (array[i] & 0xff);
+    return h;
+  }
+
+  // Copies the slice into a new String, one character per byte
+  @Override
+  public String toString() {
+    return new String(array, offset, length, StandardCharsets.ISO_8859_1);
+  }
+
+  // Decodes the slice as UTF-8 into a new String, the way InputReader.nextString() does
+  public String toStringUtf8() {
+    return Utf8.decode(array, view, offset, offset + length);
+  }
+
+  // Decodes the slice like toStringUtf8(), through the cache when there is one
+  String toStringUtf8(StringCache cache) {
+    if (cache == null) return toStringUtf8();
+    return cache.intern(array, view, offset, offset + length);
+  }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * An InputStream over a ReadableByteChannel which reads straight into the array passed
+ * to read, which is the InputReader's own buffer, through a heap ByteBuffer wrapping
+ * it. Unlike {@link java.nio.channels.Channels#newInputStream} it allocates no
+ * ByteBuffer per read, and it keeps no buffer of its own, so it adds no copy on top of
+ * the channel's read. The JDK may still stage a read into a heap buffer through a
+ * cached direct buffer of its own.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.InputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.SelectableChannel;
+
+final class ChannelInputStream extends InputStream {
+
+  private final ReadableByteChannel channel;
+
+  // The ByteBuffer wrapping the array of the last read, reused while the array is the same
+  private ByteBuffer wrapper = ByteBuffer.allocate(0);
+
+  /**
+   * Create a stream over a channel.
+   * @param channel    The channel to read from, which must be in blocking mode.
+   */
+  ChannelInputStream(ReadableByteChannel channel) {
+    if (channel == null) throw new IllegalArgumentException();
+    if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+      throw new IllegalBlockingModeException();
+    this.channel = channel;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+    if (len == 0) return 0;
+    if (wrapper.array() != b) wrapper = ByteBuffer.wrap(b);
+    wrapper.limit(off + len);
+    wrapper.position(off);
+    int n;
+    do {
+      n = channel.read(wrapper);
+    } while (n == 0);
+    return n;
+  }
+
+  // Moves the position of a file channel instead of reading, never past its end
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0 || !seekable()) return 0;
+    SeekableByteChannel seekable = (SeekableByteChannel) channel;
+    long position = seekable.position();
+    long k = Math.max(0, Math.min(n, seekable.size() - position));
+    seekable.position(position + k);
+    return k;
+  }
+
+  // Whether skip can move the position of the channel instead of skipping nothing
+  boolean seekable() {
+    return channel instanceof SeekableByteChannel;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
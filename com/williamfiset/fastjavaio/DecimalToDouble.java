@@ -0,0 +1,277 @@
+/**
+ * Parses decimal numbers straight out of a byte buffer into correctly rounded doubles
+ * and floats without allocating. Numbers with at most 19 significant digits are
+ * converted exactly with Clinger's fast path or Daniel Lemire's extension of the
+ * Eisel-Lemire algorithm, which multiplies the decimal significand by a 128 bit
+ * approximation of the matching power of five. The rare inputs the algorithm cannot
+ * decide, as well as hexadecimal and suffixed literals, are handed to the JDK.
+ *
+ * See "Number Parsing at a Gigabyte per Second", D. Lemire, 2021.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+final class DecimalToDouble {
+
+  // Range of decimal exponents q for which 5^q is tabulated
+  private static final int Q_MIN = -342;
+  private static final int Q_MAX = 308;
+
+  // 5^q normalized so its most significant bit is bit 127, split into high and low 64 bits
+  private static final long[] pow5High = new long[Q_MAX - Q_MIN + 1];
+  private static final long[] pow5Low  = new long[Q_MAX - Q_MIN + 1];
+
+  static {
+    BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    for (int q = Q_MIN; q <= Q_MAX; q++) {
+      BigInteger p;
+      if (q >= 0) {
+        // Truncate 5^q to its 128 most significant bits
+        BigInteger pow = BigInteger.valueOf(5).pow(q);
+        int len = pow.bitLength();
+        p = len <= 128 ? pow.shiftLeft(128 - len) : pow.shiftRight(len - 128);
+      } else {
+        // Round the reciprocal 2^b / 5^-q up and then truncate it to 128 bits
+        BigInteger pow = BigInteger.valueOf(5).pow(-q);
+        int z = pow.bitLength();
+        int b = q >= -27 ? z + 127 : 2 * z + 128;
+        p = BigInteger.ONE.shiftLeft(b).divide(pow).add(BigInteger.ONE);
+        int len = p.bitLength();
+        if (len > 128) p = p.shiftRight(len - 128);
+      }
+      pow5High[q - Q_MIN] = p.shiftRight(64).longValue();
+      pow5Low[q - Q_MIN] = p.and(mask64).longValue();
+    }
+  }
+
+  // Powers of ten which are exactly representable as doubles and floats
+  private static final double[] doublePowers = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final float[] floatPowers = {
+    1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+
+  // The widest decimal significand which is parsed exactly into a long
+  private static final int MAX_DIGITS = 19;
+
+  // Returned by compute when the result cannot be decided from the 128 bit product
+  private static final long UNDECIDED = -1;
+
+  /**
+   * The layout of a binary floating point format: the number of explicit mantissa
+   * bits, the exponent bias, the all ones exponent of infinity, the decimal exponents
+   * outside of which every value is zero or infinite, and the decimal exponents
+   * between which the product can be exact and ties must be rounded to even.
+   */
+  private static final int[] DOUBLE = { 52, -1023, 0x7ff, -342, 308,  -4, 23 };
+  private static final int[] FLOAT  = { 23,  -127,  0xff,  -65,  38, -17, 10 };
+
+  private DecimalToDouble() {}
+
+  /**
+   * Parses the bytes b[from, to) as a double the way {@link Double#parseDouble(String)} does.
+   * The view must be a little endian ByteBuffer wrapping b, used to read eight digits at once.
+   * @throws NumberFormatException if the bytes are not a number.
+   */
+  static double parseDouble(byte[] b, ByteBuffer view, int from, int to) {
+    long bits = parse(b, view, from, to, DOUBLE);
+    if (bits == UNDECIDED) {
+      String s = new String(b, from, to - from, StandardCharsets.ISO_8859_1);
+      double value = Double.parseDouble(s);
+      Jfr.slowNumber(s, false);
+      return value;
+    }
+    return Double.longBitsToDouble(bits);
+  }
+
+  /**
+   * Parses the bytes b[from, to) as a float the way {@link Float#parseFloat(String)} does.
+   * The view must be a little endian ByteBuffer wrapping b, used to read eight digits at once.
+   * @throws NumberFormatException if the bytes are not a number.
+   */
+  static float parseFloat(byte[] b, ByteBuffer view, int from, int to) {
+    long bits = parse(b, view, from, to, FLOAT);
+    if (bits == UNDECIDED) {
+      String s = new String(b, from, to - from, StandardCharsets.ISO_8859_1);
+      float value = Float.parseFloat(s);
+      Jfr.slowNumber(s, true);
+      return value;
+    }
+    return Float.intBitsToFloat((int) bits);
+  }
+
+  /**
+   * Parses the bytes b[from, to) into the bits of the closest number in the format fmt.
+   * @return The bits including the sign or UNDECIDED if the JDK must parse the bytes.
+   */
+  private static long parse(byte[] b, ByteBuffer view, int from, int to, int[] fmt) {
+    int p = from;
+    boolean negative = false;
+    if (p < to && (b[p] == '-' || b[p] == '+')) negative = b[p++] == '-';
+    long sign = negative ? 1L << bitLength(fmt) - 1 : 0;
+
+    // Integer part, then fraction part, accumulating every digit into the significand
+    long w = 0;
+    int start = p;
+    while (p + 8 <= to && Swar.nonDigitMask(view.getLong(p)) == 0) {
+      w = w * 100000000 + Swar.parseEightDigits(view.getLong(p));
+      p += 8;
+    }
+    while (p < to && isDigit(b[p])) w = 10 * w + (b[p++] - '0');
+    int intEnd = p, digits = p - start, fractionDigits = 0;
+    if (p < to && b[p] == '.') {
+      int fractionStart = ++p;
+      while (p + 8 <= to && Swar.nonDigitMask(view.getLong(p)) == 0) {
+        w = w * 100000000 + Swar.parseEightDigits(view.getLong(p));
+        p += 8;
+      }
+      while (p < to && isDigit(b[p])) w = 10 * w + (b[p++] - '0');
+      fractionDigits = p - fractionStart;
+      digits += fractionDigits;
+    }
+    if (digits == 0) {
+      if (p != start) return UNDECIDED;
+      if (matches(b, p, to, "Infinity")) return sign | (long) fmt[2] << fmt[0];
+      if (matches(b, p, to, "NaN")) return (long) fmt[2] << fmt[0] | 1L << fmt[0] - 1;
+      return UNDECIDED;
+    }
+
+    long exponent = 0;
+    if (p < to && (b[p] == 'e' || b[p] == 'E')) {
+      p++;
+      boolean negativeExponent = false;
+      if (p < to && (b[p] == '-' || b[p] == '+')) negativeExponent = b[p++] == '-';
+      if (p == to) return UNDECIDED;
+      for (; p < to && isDigit(b[p]); p++)
+        // Huge exponents overflow to infinity or underflow to zero all the same
+        if (exponent < 0x10000000) exponent = 10 * exponent + (b[p] - '0');
+      if (negativeExponent) exponent = -exponent;
+    }
+    // Suffixes like 'd' and anything which is not a number are left to the JDK
+    if (p != to) return UNDECIDED;
+
+    long q = exponent - fractionDigits;
+    boolean truncated = false;
+    if (digits > MAX_DIGITS) {
+      // Leading zeros carry no precision, so skip them and count again
+      int i = start;
+      for (; b[i] == '0' || b[i] == '.'; i++) if (b[i] == '0') digits--;
+      if (digits > MAX_DIGITS) {
+        // Keep the first 19 significant digits and remember that the rest were dropped
+        truncated = true;
+        w = 0;
+        for (int n = 0; n < MAX_DIGITS; i++) {
+          if (b[i] == '.') continue;
+          w = 10 * w + (b[i] - '0');
+          n++;
+        }
+        q = exponent + (i <= intEnd ? intEnd - i : intEnd + 1 - i);
+      }
+    }
+
+    if (!truncated) {
+      // Clinger's fast path: w and the power of ten are exact so a single rounding suffices
+      if (fmt == DOUBLE && -22 <= q && q <= 22 && 0 <= w && w <= 1L << 53) {
+        double d = q < 0 ? w / doublePowers[(int) -q] : w * doublePowers[(int) q];
+        return sign | Double.doubleToRawLongBits(d);
+      }
+      if (fmt == FLOAT && -10 <= q && q <= 10 && 0 <= w && w <= 1L << 24) {
+        float f = q < 0 ? w / floatPowers[(int) -q] : w * floatPowers[(int) q];
+        return sign | Float.floatToRawIntBits(f);
+      }
+    }
+
+    long bits = compute(q, w, fmt);
+    // w and w + 1 bracket the dropped digits, so if they agree so does every value between
+    if (truncated && bits != compute(q, w + 1, fmt)) return UNDECIDED;
+    return bits == UNDECIDED ? UNDECIDED : sign | bits;
+  }
+
+  // The total number of bits in the format, 64 for doubles and 32 for floats
+  private static int bitLength(int[] fmt) {
+    return fmt == DOUBLE ? 64 : 32;
+  }
+
+  private static boolean isDigit(byte c) {
+    return (c - '0' & 0xff) < 10;
+  }
+
+  // Whether the bytes b[from, to) spell out s
+  private static boolean matches(byte[] b, int from, int to, String s) {
+    if (to - from != s.length()) return false;
+    for (int i = 0; i < s.length(); i++)
+      if (b[from + i] != s.charAt(i)) return false;
+    return true;
+  }
+
+  /**
+   * Computes the bits of the floating point number closest to w 10^q, where w is an
+   * unsigned 64 bit significand, in the format described by fmt.
+   * @return The bits without a sign or UNDECIDED if the product is too close to call.
+   */
+  private static long compute(long q, long w, int[] fmt) {
+    int mantissaBits = fmt[0], minExponent = fmt[1], infinitePower = fmt[2];
+    if (w == 0 || q < fmt[3]) return 0;
+    if (q > fmt[4]) return (long) infinitePower << mantissaBits;
+
+    int lz = Long.numberOfLeadingZeros(w);
+    w <<= lz;
+
+    // The product of w and 5^q, keeping only the mantissa bits plus three guard bits
+    int index = (int) q - Q_MIN;
+    long low = w * pow5High[index];
+    long high = unsignedMultiplyHigh(w, pow5High[index]);
+    long precisionMask = -1L >>> (mantissaBits + 3);
+    if ((high & precisionMask) == precisionMask) {
+      // The truncated bits could carry into the mantissa so bring in the low half of 5^q
+      long secondHigh = unsignedMultiplyHigh(w, pow5Low[index]);
+      low += secondHigh;
+      if (Long.compareUnsigned(secondHigh, low) > 0) high++;
+    }
+    // Outside of this range of q the 128 bit power is inexact and cannot settle a carry
+    if (low == -1 && (q < -27 || q > 55)) return UNDECIDED;
+
+    int upperBit = (int) (high >>> 63);
+    int shift = upperBit + 64 - mantissaBits - 3;
+    long mantissa = high >>> shift;
+    // floor(log2(10^q)) + 63, the binary exponent of the normalized product
+    int power2 = (int) (((152170 + 65536) * q) >> 16) + 63 + upperBit - lz - minExponent;
+
+    if (power2 <= 0) {
+      // Subnormal, shift the mantissa right until the exponent is one and round
+      if (-power2 + 1 >= 64) return 0;
+      mantissa >>>= -power2 + 1;
+      mantissa += mantissa & 1;
+      mantissa >>>= 1;
+      power2 = mantissa < 1L << mantissaBits ? 0 : 1;
+      return (long) power2 << mantissaBits | mantissa & ((1L << mantissaBits) - 1);
+    }
+
+    // An exact product half way between two floats must round to even rather than up
+    if (Long.compareUnsigned(low, 1) <= 0 && fmt[5] <= q && q <= fmt[6] && (mantissa & 3) == 1)
+      if (mantissa << shift == high) mantissa &= ~1L;
+
+    mantissa += mantissa & 1;
+    mantissa >>>= 1;
+    if (mantissa >= 2L << mantissaBits) {
+      mantissa = 1L << mantissaBits;
+      power2++;
+    }
+    mantissa &= ~(1L << mantissaBits);
+    if (power2 >= infinitePower) return (long) infinitePower << mantissaBits;
+    return (long) power2 << mantissaBits | mantissa;
+  }
+
+  // The high 64 bits of the unsigned 128 bit product x * y
+  private static long unsignedMultiplyHigh(long x, long y) {
+    return DoubleToDecimal.multiplyHigh(x, y) + (x >> 63 & y) + (y >> 63 & x);
+  }
+
+}
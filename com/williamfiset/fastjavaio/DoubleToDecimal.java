@@ -0,0 +1,235 @@
+/**
+ * Writes the shortest decimal representation of a double which rounds back to
+ * the same double, formatted the way {@link Double#toString(double)} formats it.
+ * The conversion uses Raffaello Giulietti's Schubfach algorithm and writes bytes
+ * straight into a caller supplied buffer so nothing is allocated per value.
+ *
+ * See "The Schubfach way to render doubles", R. Giulietti, 2020.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.math.BigInteger;
+
+final class DoubleToDecimal {
+
+  /**
+   * The maximum number of bytes written for a single double, reached by values
+   * such as "-2.2250738585072014E-308".
+   */
+  static final int MAX_CHARS = 24;
+
+  // Precision of a double in bits and the smallest binary exponent of a double
+  private static final int P = 53;
+  private static final int Q_MIN = -1074;
+
+  // Smallest normal significand, and significands below this are scaled up by 10
+  private static final long C_MIN = 1L << (P - 1);
+  private static final long C_TINY = 3;
+
+  private static final int BQ_MASK = 0x7ff;
+  private static final long T_MASK = (1L << (P - 1)) - 1;
+  private static final long MASK_63 = 0x7fffffffffffffffL;
+
+  // Range of decimal exponents k for which 10^-k is tabulated
+  private static final int K_MIN = -324;
+  private static final int K_MAX = 292;
+
+  // 10^-k = g 2^r, split into the high (g1) and low (g0) 63 bits of g
+  private static final long[] g1 = new long[K_MAX - K_MIN + 1];
+  private static final long[] g0 = new long[K_MAX - K_MIN + 1];
+
+  static {
+    BigInteger mask63 = BigInteger.valueOf(MASK_63);
+    for (int k = K_MIN; k <= K_MAX; k++) {
+      BigInteger g;
+      if (k <= 0) {
+        BigInteger pow = BigInteger.TEN.pow(-k);
+        int len = pow.bitLength();
+        g = len <= 126 ? pow.shiftLeft(126 - len) : pow.shiftRight(len - 126);
+      } else {
+        BigInteger pow = BigInteger.TEN.pow(k);
+        g = BigInteger.ONE.shiftLeft(125 + pow.bitLength()).divide(pow);
+      }
+      g = g.add(BigInteger.ONE);
+      g1[k - K_MIN] = g.shiftRight(63).longValue();
+      g0[k - K_MIN] = g.and(mask63).longValue();
+    }
+  }
+
+  private DoubleToDecimal() {}
+
+  /**
+   * Writes the decimal representation of v into b starting at index p.
+   * @return The index one past the last byte written.
+   */
+  static int write(double v, byte[] b, int p) {
+    long bits = Double.doubleToRawLongBits(v);
+    long t = bits & T_MASK;
+    int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+    if (bq < BQ_MASK) {
+      if (bits < 0) b[p++] = '-';
+      if (bq != 0) {
+        // normal value, v = c 2^q with q = -mq
+        int mq = -Q_MIN + 1 - bq;
+        long c = C_MIN | t;
+        // Fast path for integers
+        if (0 < mq & mq < P) {
+          long f = c >> mq;
+          if (f << mq == c) return toChars(f, 0, b, p);
+        }
+        return toDecimal(-mq, c, 0, b, p);
+      }
+      if (t != 0) {
+        // subnormal value
+        return t < C_TINY ? toDecimal(Q_MIN, 10 * t, -1, b, p) : toDecimal(Q_MIN, t, 0, b, p);
+      }
+      return ascii("0.0", b, p);
+    }
+    if (t != 0) return ascii("NaN", b, p);
+    return ascii(bits > 0 ? "Infinity" : "-Infinity", b, p);
+  }
+
+  // Finds the shortest decimal f 10^e in the rounding interval of c 2^q
+  private static int toDecimal(int q, long c, int dk, byte[] b, int p) {
+    int out = (int) c & 1;
+    long cb = c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != C_MIN | q == Q_MIN) {
+      cbl = cb - 2;
+      k = flog10pow2(q);
+    } else {
+      cbl = cb - 1;
+      k = flog10threeQuartersPow2(q);
+    }
+    int h = q + flog2pow10(-k) + 2;
+
+    long g1 = DoubleToDecimal.g1[k - K_MIN];
+    long g0 = DoubleToDecimal.g0[k - K_MIN];
+
+    long vb = rop(g1, g0, cb << h);
+    long vbl = rop(g1, g0, cbl << h);
+    long vbr = rop(g1, g0, cbr << h);
+
+    long s = vb >> 2;
+    if (s >= 100) {
+      // Try the candidates with one digit less first, s' = floor(s / 10)
+      long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+      long tp10 = sp10 + 10;
+      boolean upin = vbl + out <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + out <= vbr;
+      if (upin != wpin) return toChars(upin ? sp10 : tp10, k, b, p);
+    }
+
+    long t = s + 1;
+    boolean uin = vbl + out <= s << 2;
+    boolean win = (t << 2) + out <= vbr;
+    if (uin != win) return toChars(uin ? s : t, k + dk, b, p);
+
+    // Both candidates are in the interval, pick the closest breaking ties to even
+    long cmp = vb - (s + t << 1);
+    return toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, b, p);
+  }
+
+  // Computes the rounded-to-odd product of g and cp scaled down by 2^127
+  private static long rop(long g1, long g0, long cp) {
+    long x1 = multiplyHigh(g0, cp);
+    long y0 = g1 * cp;
+    long y1 = multiplyHigh(g1, cp);
+    long z = (y0 >>> 1) + x1;
+    long vbp = y1 + (z >>> 63);
+    return vbp | (z & MASK_63) + MASK_63 >>> 63;
+  }
+
+  // floor(q log10(2))
+  private static int flog10pow2(int q) {
+    return (int) (q * 661_971_961_083L >> 41);
+  }
+
+  // floor(q log10(3/4 2))
+  private static int flog10threeQuartersPow2(int q) {
+    return (int) (q * 661_971_961_083L + -274_743_187_321L >> 41);
+  }
+
+  // floor(e log2(10))
+  private static int flog2pow10(int e) {
+    return (int) (e * 913_124_641_741L >> 38);
+  }
+
+  // The high 64 bits of the signed 128 bit product x * y (Math.multiplyHigh is Java 9+)
+  static long multiplyHigh(long x, long y) {
+    long x1 = x >> 32, x2 = x & 0xffffffffL;
+    long y1 = y >> 32, y2 = y & 0xffffffffL;
+    long z2 = x2 * y2;
+    long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xffffffffL;
+    long z0 = t >> 32;
+    z1 += x2 * y1;
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  /**
+   * Writes f 10^e in the format of Double.toString: plain notation when
+   * 10^-3 <= v < 10^7 and computerized scientific notation otherwise.
+   */
+  private static int toChars(long f, int e, byte[] b, int p) {
+    while (f % 10 == 0) { f /= 10; e++; }
+    int len = digits(f);
+
+    // Decimal exponent of the leading digit
+    int exp = e + len - 1;
+
+    if (0 <= exp && exp < 7) {
+      if (len <= exp + 1) {
+        writeDigits(f, len, b, p); p += len;
+        for (int i = len; i <= exp; i++) b[p++] = '0';
+        b[p++] = '.'; b[p++] = '0';
+      } else {
+        // Write the digits one position over and then pull the integer part in front of the dot
+        writeDigits(f, len, b, p + 1);
+        for (int i = 0; i <= exp; i++) b[p + i] = b[p + i + 1];
+        b[p + exp + 1] = '.';
+        p += len + 1;
+      }
+    } else if (-3 <= exp && exp < 0) {
+      b[p++] = '0'; b[p++] = '.';
+      for (int i = -1; i > exp; i--) b[p++] = '0';
+      writeDigits(f, len, b, p); p += len;
+    } else {
+      writeDigits(f, len, b, p + 1);
+      b[p] = b[p + 1]; b[p + 1] = '.';
+      if (len == 1) { b[p + 2] = '0'; p += 3; }
+      else p += len + 1;
+      b[p++] = 'E';
+      if (exp < 0) { b[p++] = '-'; exp = -exp; }
+      if (exp >= 100) { b[p++] = (byte) ('0' + exp / 100); exp %= 100; b[p++] = (byte) ('0' + exp / 10); }
+      else if (exp >= 10) b[p++] = (byte) ('0' + exp / 10);
+      b[p++] = (byte) ('0' + exp % 10);
+    }
+    return p;
+  }
+
+  // Number of decimal digits in f > 0
+  private static int digits(long f) {
+    int len = 1;
+    for (long pow = 10; len < 19 && f >= pow; pow *= 10) len++;
+    return len;
+  }
+
+  // Writes the len decimal digits of f into b[p, p+len)
+  private static void writeDigits(long f, int len, byte[] b, int p) {
+    for (int i = p + len - 1; i >= p; i--) {
+      b[i] = (byte) ('0' + f % 10);
+      f /= 10;
+    }
+  }
+
+  private static int ascii(String s, byte[] b, int p) {
+    for (int i = 0; i < s.length(); i++) b[p++] = (byte) s.charAt(i);
+    return p;
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * The layout of fixed-width records, where every field sits at a known column of the
+ * record instead of being delimited. A layout lists the width and type of each field
+ * in order, and {@link InputReader#readBatch(FixedWidthLayout, RowBatch)} parses the
+ * fields straight from their offsets in the buffer into a {@link RowBatch}, without
+ * scanning for delimiters.
+ *
+ * Numbers may be padded with spaces on either side. Strings lose the spaces padding
+ * them on the right. A field whose type is null is filler and is not read.
+ *
+ * <pre>{@code
+ * // A 9 digit id, 21 bytes of name, 5 bytes of filler, a 10 byte amount, then "\n"
+ * FixedWidthLayout layout = new FixedWidthLayout(
+ *   new int[] {9, 21, 5, 10},
+ *   new RowBatch.Type[] {RowBatch.Type.LONG, RowBatch.Type.STRING, null, RowBatch.Type.DOUBLE});
+ * RowBatch batch = layout.newBatch(4096);
+ * while (in.readBatch(layout, batch) > 0) ...
+ * }</pre>
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class FixedWidthLayout {
+
+  // The offset in the record, width and type code of every field which is read
+  final int[] offsets, widths;
+  final byte[] types;
+
+  // The bytes which end every record, checked after its fields
+  final byte[] terminator;
+
+  // The length of the fields of a record, and of a whole record with its terminator
+  final int fieldsLength, recordLength;
+
+  private final RowBatch.Type[] schema;
+
+  /**
+   * Create the layout of records which end with a new line ("\n").
+   * @param widths    The width in bytes of every field, in the order they appear.
+   * @param types     The type of every field, or null for filler which is not read.
+   */
+  public FixedWidthLayout(int[] widths, RowBatch.Type[] types) {
+    this(widths, types, "\n");
+  }
+
+  /**
+   * Create the layout of records which end with the given terminator.
+   * @param widths        The width in bytes of every field, in the order they appear.
+   * @param types         The type of every field, or null for filler which is not read.
+   * @param terminator    The bytes after the fields of every record, such as "\n", "\r\n"
+   *                      or "" for records which follow each other directly.
+   */
+  public FixedWidthLayout(int[] widths, RowBatch.Type[] types, String terminator) {
+    if (widths == null || types == null || terminator == null || widths.length != types.length)
+      throw new IllegalArgumentException();
+    List<RowBatch.Type> schema = new ArrayList<>();
+    int[] offsets = new int[widths.length], kept = new int[widths.length];
+    long length = 0;
+    for (int i = 0; i < widths.length; i++) {
+      if (widths[i] <= 0) throw new IllegalArgumentException("Field " + i + " has width " + widths[i]);
+      if (types[i] != null) {
+        offsets[schema.size()] = (int) length;
+        kept[schema.size()] = widths[i];
+        schema.add(types[i]);
+      }
+      length += widths[i];
+    }
+    if (schema.isEmpty()) throw new IllegalArgumentException("No fields are read");
+    this.terminator = terminator.getBytes(StandardCharsets.ISO_8859_1);
+    if (length + this.terminator.length > Integer.MAX_VALUE - 8)
+      throw new IllegalArgumentException("Records are too long");
+
+    int n = schema.size();
+    this.schema = schema.toArray(new RowBatch.Type[n]);
+    this.offsets = Arrays.copyOf(offsets, n);
+    this.widths = Arrays.copyOf(kept, n);
+    this.types = new byte[n];
+    for (int i = 0; i < n; i++) this.types[i] = (byte) this.schema[i].ordinal();
+    fieldsLength = (int) length;
+    recordLength = fieldsLength + this.terminator.length;
+  }
+
+  // Creates a batch with one column per field which is read
+  public RowBatch newBatch(int capacity) {
+    return new RowBatch(capacity, schema);
+  }
+
+  // The length of a record in bytes, including its terminator
+  public int recordLength() {
+    return recordLength;
+  }
+
+  @Override
+  public String toString() {
+    return "FixedWidthLayout[schema=" + Arrays.toString(schema) + ", widths=" + Arrays.toString(widths) +
+           ", recordLength=" + recordLength + "]";
+  }
+
+}
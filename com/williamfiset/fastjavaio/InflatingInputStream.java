@@ -0,0 +1,207 @@
+/**
+ * An InputStream which decompresses gzip or zlib data from another stream. Unlike
+ * GZIPInputStream, which reads the compressed data through a 512 byte buffer, this
+ * stream feeds the Inflater large chunks of compressed data and inflates straight into
+ * the array passed to read, which is the InputReader's own buffer, so a refill costs
+ * one call into the Inflater instead of many.
+ *
+ * Gzip files made of several members, as written by concatenating .gz files or by
+ * parallel compressors, are read to the end of the last member. As with
+ * GZIPInputStream, bytes after the last member which are not a gzip header are ignored.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+final class InflatingInputStream extends InputStream {
+
+  // The size of the buffer for compressed data
+  private static final int INPUT_SIZE = 1 << 16;
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+
+  // Gzip header flags
+  private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+  private final InputStream source;
+  private final Inflater inflater;
+  private final boolean gzip;
+  private final CRC32 crc = new CRC32();
+
+  // Compressed bytes input[pos, limit) have not been handed to the Inflater yet
+  private final byte[] input = new byte[INPUT_SIZE];
+  private int pos, limit;
+
+  private boolean needsHeader, eof, closed;
+
+  // The number of gzip members read so far
+  private int members;
+
+  /**
+   * Create a stream which decompresses the source.
+   * @param source    The compressed stream.
+   * @param gzip      Whether the source is in gzip format rather than zlib format.
+   */
+  InflatingInputStream(InputStream source, boolean gzip) {
+    if (source == null) throw new IllegalArgumentException();
+    this.source = source;
+    this.gzip = gzip;
+    this.inflater = new Inflater(gzip);
+    this.needsHeader = gzip;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (closed) throw new IOException("Stream closed");
+    if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+    if (len == 0) return 0;
+
+    while (!eof) {
+
+      if (needsHeader) {
+        if (!readHeader()) break;
+        needsHeader = false;
+      }
+
+      int n;
+      try {
+        n = inflater.inflate(b, off, len);
+      } catch (DataFormatException e) {
+        throw new ZipException(e.getMessage() != null ? e.getMessage() : "Invalid compressed data");
+      }
+      if (n > 0) {
+        if (gzip) crc.update(b, off, n);
+        return n;
+      }
+
+      if (inflater.finished()) {
+        pos = limit - inflater.getRemaining();
+        if (gzip) {
+          readTrailer();
+          inflater.reset();
+          crc.reset();
+          needsHeader = true;
+        } else {
+          eof = true;
+        }
+      } else if (inflater.needsDictionary()) {
+        throw new ZipException("Preset dictionaries are not supported");
+      } else if (inflater.needsInput()) {
+        if (pos == limit && !fillInput()) throw new EOFException("Unexpected end of compressed stream");
+        inflater.setInput(input, pos, limit - pos);
+        pos = limit;
+      }
+
+    }
+
+    eof = true;
+    return -1;
+  }
+
+  // Reads more compressed bytes into the input buffer, returning false at the end of the source
+  private boolean fillInput() throws IOException {
+    if (pos > 0) {
+      System.arraycopy(input, pos, input, 0, limit - pos);
+      limit -= pos;
+      pos = 0;
+    }
+    int n;
+    do {
+      n = source.read(input, limit, input.length - limit);
+    } while (n == 0);
+    if (n < 0) return false;
+    limit += n;
+    return true;
+  }
+
+  // Returns the next compressed byte which was not handed to the Inflater, or -1 at the end of the source
+  private int nextInputByte() throws IOException {
+    if (pos == limit && !fillInput()) return -1;
+    return input[pos++] & 0xff;
+  }
+
+  private int readByte() throws IOException {
+    int b = nextInputByte();
+    if (b == -1) throw new EOFException("Unexpected end of gzip stream");
+    crc.update(b);
+    return b;
+  }
+
+  private int readShort() throws IOException {
+    return readByte() | readByte() << 8;
+  }
+
+  private long readInt() throws IOException {
+    return (readShort() | (long) readShort() << 16) & 0xffffffffL;
+  }
+
+  /**
+   * Reads the header of a gzip member. The first member must be there, but a later one
+   * may be missing or replaced by trailing garbage, which ends the stream.
+   * @return Whether a member follows.
+   */
+  private boolean readHeader() throws IOException {
+    boolean first = members == 0;
+    crc.reset();
+
+    int id1 = nextInputByte();
+    if (id1 == -1 && !first) return false;
+    int id2 = id1 == -1 ? -1 : nextInputByte();
+    if (id1 == -1 || id2 == -1) throw new EOFException("Unexpected end of gzip stream");
+    if ((id1 | id2 << 8) != GZIP_MAGIC) {
+      if (first) throw new ZipException("Not in GZIP format");
+      return false;
+    }
+    crc.update(id1);
+    crc.update(id2);
+
+    if (readByte() != 8) throw new ZipException("Unsupported compression method");
+    int flags = readByte();
+    for (int i = 0; i < 6; i++) readByte(); // Modification time, extra flags and OS
+
+    if ((flags & FEXTRA) != 0)
+      for (int n = readShort(); n > 0; n--) readByte();
+    if ((flags & FNAME) != 0)
+      while (readByte() != 0);
+    if ((flags & FCOMMENT) != 0)
+      while (readByte() != 0);
+    if ((flags & FHCRC) != 0) {
+      int expected = (int) crc.getValue() & 0xffff;
+      if (readShort() != expected) throw new ZipException("Corrupt gzip header");
+    }
+
+    crc.reset();
+    members++;
+    return true;
+  }
+
+  // Reads the CRC-32 and length which end a gzip member and checks them
+  private void readTrailer() throws IOException {
+    long expectedCrc = crc.getValue(), expectedSize = inflater.getBytesWritten() & 0xffffffffL;
+    if (readInt() != expectedCrc) throw new ZipException("Corrupt gzip trailer, the CRC does not match");
+    if (readInt() != expectedSize) throw new ZipException("Corrupt gzip trailer, the size does not match");
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+    inflater.end();
+    source.close();
+  }
+
+}
@@ -8,36 +8,60 @@
  **/
 package com.williamfiset.fastjavaio;
 
+import java.io.Closeable;
 import java.io.InputStream;
 import java.io.IOException;
-
-public class InputReader {
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public class InputReader implements Closeable {
   
   /**
    * The default size of the InputReader's buffer is 2<sup>16</sup>.
    */
-  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+  static final int DEFAULT_BUFFER_SIZE = 1 << 16;
   
   /**
    * The default stream for the InputReader is standard input.
    */  
   private static final InputStream DEFAULT_STREAM = System.in;
   
-  /**
-   * The maximum number of accurate decimal digits the method {@link #nextDoubleFast() nextDoubleFast()} can read.
-   * Currently this value is set to 21 because it is the maximum number of digits a double precision float can have at the moment.
-   */
-  private static final int MAX_DECIMAL_PRECISION = 21;
-  
   // 'c' is used to refer to the current character in the stream
   private int c;
   
   // Variables associated with the byte buffer. 
   private byte[] buf;
   private int bufferSize, bufIndex, numBytesRead;
+
+  // A little endian view of the byte buffer used to load eight bytes at a time.
+  private ByteBuffer bufView;
+
+  // The offset in the stream of buf[0], which is the number of bytes consumed before
+  // the current buffer was filled.
+  private long bufferStart;
   
   private InputStream stream;
 
+  // The bounds of the buffer size when adaptive buffering is enabled, or 0 when it is not.
+  private int minBufferSize, maxBufferSize;
+
+  // The number of consecutive refills which filled the buffer or used little of it.
+  private int fullReads, sparseReads;
+
+  // Grow the buffer after this many full refills in a row, and shrink it after this
+  // many refills in a row which used at most a quarter of it.
+  private static final int GROW_AFTER = 2, SHRINK_AFTER = 8;
+
   // End Of File (EOF) character
   private static final byte EOF   = -1;
 
@@ -50,38 +74,57 @@ public class InputReader {
   // Dash character: '-'
   private static final byte DASH  = 45;
 
-  // Dot character: '.'
-  private static final byte DOT   = 46;
+  // Double quote character, which encloses quoted fields in CSV mode
+  private static final byte QUOTE = 34;
+
+  // The classes of bytes in CSV mode
+  private static final byte FIELD_BYTE = 0, SEPARATOR = 1, RECORD_END = 2;
+
+  // The class of every byte value in CSV mode, or null when tokens are delimited by whitespace.
+  private byte[] csvClasses;
+
+  // The field separators in CSV mode, scanned for eight bytes at a time.
+  private byte[] separators;
 
-  // A reusable character buffer when reading string data.
-  private char[] charBuffer;
+  // Whether the last CSV field read ended its record, and whether it ended with a
+  // separator so another field follows even at the end of the stream.
+  private boolean endOfRecord = true, fieldPending;
+
+  // The field behind nextInt(), nextDouble()... in CSV mode.
+  private final ByteSlice field = new ByteSlice();
+
+  // The index after the digits parsed by scanLong().
+  private int scanEnd;
+
+  // A reusable buffer for numeric tokens which are split across two buffer refills.
+  private byte[] tokenBuffer;
+  private ByteBuffer tokenView;
+
+  // Deduplicates the strings returned by nextString() when set.
+  private StringCache stringCache;
+
+  // Why readBatch rejected a fixed-width record which crossed a buffer refill. Unlike a
+  // bad record inside the buffer it cannot be read again, so every later call throws
+  // with this message.
+  private String badRecord;
+
+  // Counts reads and parsed values when set.
+  private InputReaderStats stats;
 
   // Primitive data type lookup tables used for optimizations
   private static byte[] bytes = new byte[58];
   private static  int[] ints  = new int[58];
-  private static char[] chars = new char[128];
+
+  // Powers of ten used to shift a partial result left by n digits
+  private static final  int[] intPowers  = { 1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000 };
+  static final long[] longPowers = { 1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000 };
 
   static {
-    char ch = ' '; int value = 0; byte _byte = 0;
+    int value = 0; byte _byte = 0;
     for (int i = 48; i <  58; i++ ) bytes[i] = _byte++;
     for (int i = 48; i <  58; i++ )  ints[i] = value++;
-    for (int i = 32; i < 128; i++ ) chars[i] = ch++;
-  }
-
-  // Primitive double lookup table used for optimizations.
-  private static final double[][] doubles = {
-    { 0.0d,0.00d,0.000d,0.0000d,0.00000d,0.000000d,0.0000000d,0.00000000d,0.000000000d,0.0000000000d,0.00000000000d,0.000000000000d,0.0000000000000d,0.00000000000000d,0.000000000000000d,0.0000000000000000d,0.00000000000000000d,0.000000000000000000d,0.0000000000000000000d,0.00000000000000000000d,0.000000000000000000000d },
-    { 0.1d,0.01d,0.001d,0.0001d,0.00001d,0.000001d,0.0000001d,0.00000001d,0.000000001d,0.0000000001d,0.00000000001d,0.000000000001d,0.0000000000001d,0.00000000000001d,0.000000000000001d,0.0000000000000001d,0.00000000000000001d,0.000000000000000001d,0.0000000000000000001d,0.00000000000000000001d,0.000000000000000000001d },
-    { 0.2d,0.02d,0.002d,0.0002d,0.00002d,0.000002d,0.0000002d,0.00000002d,0.000000002d,0.0000000002d,0.00000000002d,0.000000000002d,0.0000000000002d,0.00000000000002d,0.000000000000002d,0.0000000000000002d,0.00000000000000002d,0.000000000000000002d,0.0000000000000000002d,0.00000000000000000002d,0.000000000000000000002d },
-    { 0.3d,0.03d,0.003d,0.0003d,0.00003d,0.000003d,0.0000003d,0.00000003d,0.000000003d,0.0000000003d,0.00000000003d,0.000000000003d,0.0000000000003d,0.00000000000003d,0.000000000000003d,0.0000000000000003d,0.00000000000000003d,0.000000000000000003d,0.0000000000000000003d,0.00000000000000000003d,0.000000000000000000003d },
-    { 0.4d,0.04d,0.004d,0.0004d,0.00004d,0.000004d,0.0000004d,0.00000004d,0.000000004d,0.0000000004d,0.00000000004d,0.000000000004d,0.0000000000004d,0.00000000000004d,0.000000000000004d,0.0000000000000004d,0.00000000000000004d,0.000000000000000004d,0.0000000000000000004d,0.00000000000000000004d,0.000000000000000000004d },
-    { 0.5d,0.05d,0.005d,0.0005d,0.00005d,0.000005d,0.0000005d,0.00000005d,0.000000005d,0.0000000005d,0.00000000005d,0.000000000005d,0.0000000000005d,0.00000000000005d,0.000000000000005d,0.0000000000000005d,0.00000000000000005d,0.000000000000000005d,0.0000000000000000005d,0.00000000000000000005d,0.000000000000000000005d },
-    { 0.6d,0.06d,0.006d,0.0006d,0.00006d,0.000006d,0.0000006d,0.00000006d,0.000000006d,0.0000000006d,0.00000000006d,0.000000000006d,0.0000000000006d,0.00000000000006d,0.000000000000006d,0.0000000000000006d,0.00000000000000006d,0.000000000000000006d,0.0000000000000000006d,0.00000000000000000006d,0.000000000000000000006d },
-    { 0.7d,0.07d,0.007d,0.0007d,0.00007d,0.000007d,0.0000007d,0.00000007d,0.000000007d,0.0000000007d,0.00000000007d,0.000000000007d,0.0000000000007d,0.00000000000007d,0.000000000000007d,0.0000000000000007d,0.00000000000000007d,0.000000000000000007d,0.0000000000000000007d,0.00000000000000000007d,0.000000000000000000007d },
-    { 0.8d,0.08d,0.008d,0.0008d,0.00008d,0.000008d,0.0000008d,0.00000008d,0.000000008d,0.0000000008d,0.00000000008d,0.000000000008d,0.0000000000008d,0.00000000000008d,0.000000000000008d,0.0000000000000008d,0.00000000000000008d,0.000000000000000008d,0.0000000000000000008d,0.00000000000000000008d,0.000000000000000000008d },
-    { 0.9d,0.09d,0.009d,0.0009d,0.00009d,0.000009d,0.0000009d,0.00000009d,0.000000009d,0.0000000009d,0.00000000009d,0.000000000009d,0.0000000000009d,0.00000000000009d,0.000000000000009d,0.0000000000000009d,0.00000000000000009d,0.000000000000000009d,0.0000000000000000009d,0.00000000000000000009d,0.000000000000000000009d }
-  };
-  
+  }
+
   /**
    * Create an InputReader that reads from standard input.
    */
@@ -114,31 +157,133 @@ public class InputReader {
     if (stream == null || bufferSize <= 0)
       throw new IllegalArgumentException();
     buf = new byte[bufferSize];
-    charBuffer = new char[128];
+    bufView = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+    tokenBuffer = new byte[32];
+    tokenView = ByteBuffer.wrap(tokenBuffer).order(ByteOrder.LITTLE_ENDIAN);
     this.bufferSize = bufferSize;
     this.stream = stream;
   }
-  
+
   /**
-   * Reads a single character from the input stream.
-   * @return Returns the byte value of the next character in the buffer and EOF 
-   * at the end of the stream.
-   * @throws IOException throws exception if there is no more data to read
+   * Create an InputReader that reads from a memory mapped file. Data is copied
+   * straight out of the mapped region into the buffer instead of being read
+   * through a stream, which avoids a system call and a kernel copy per refill.
+   * Files larger than 2GB are mapped one window at a time.
+   * @param  file    The path of the file to read.
+   * @throws IOException if the file cannot be opened or mapped.
    */
-  private byte read() throws IOException {
+  public InputReader(Path file) throws IOException {
+    this(file, DEFAULT_BUFFER_SIZE);
+  }
 
-    if (numBytesRead == EOF) throw new IOException();
+  /**
+   * Create an InputReader that reads from a memory mapped file.
+   * @param  file          The path of the file to read.
+   * @param  bufferSize    The size of the buffer to use.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public InputReader(Path file, int bufferSize) throws IOException {
+    this(new MappedFileInputStream(FileChannel.open(file, StandardOpenOption.READ)), bufferSize);
+  }
 
-    if (bufIndex >= numBytesRead) {
-      bufIndex = 0;
-      numBytesRead = stream.read(buf);
-      if (numBytesRead == EOF)
-        return EOF;
+  // Create an InputReader whose position() starts at the given offset of the stream
+  InputReader(InputStream stream, int bufferSize, long position) {
+    this(stream, bufferSize);
+    this.bufferStart = position;
+  }
+
+  /**
+   * Create an InputReader that reads a memory mapped file from a byte offset saved
+   * from {@link #position() position()}, for example to resume a job which stopped
+   * halfway through the file. The file is mapped from that offset on, so nothing
+   * before it is read, and position() carries on counting from it.
+   * @param  file        The path of the file to read.
+   * @param  position    The offset of the first byte to read.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public static InputReader resume(Path file, long position) throws IOException {
+    return resume(file, position, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Create an InputReader that reads a memory mapped file from a byte offset.
+   * @param  file          The path of the file to read.
+   * @param  position      The offset of the first byte to read.
+   * @param  bufferSize    The size of the buffer to use.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public static InputReader resume(Path file, long position, int bufferSize) throws IOException {
+    if (position < 0 || bufferSize <= 0) throw new IllegalArgumentException();
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    long size = channel.size();
+    if (position > size) {
+      channel.close();
+      throw new IllegalArgumentException("Position " + position + " is past the end of the file (" + size + " bytes)");
     }
+    return new InputReader(new MappedFileInputStream(channel, position, size, MappedFileInputStream.WINDOW_SIZE), bufferSize, position);
+  }
 
-    return buf[bufIndex++];
+  /**
+   * Create an InputReader that reads from a channel such as a SocketChannel, 
+   * Pipe.SourceChannel or FileChannel. The channel reads straight into the reader's
+   * buffer, without a ByteBuffer allocated per read or a second buffer to copy through.
+   * @param  channel    A channel in blocking mode to read from.
+   */
+  public InputReader(ReadableByteChannel channel) {
+    this(channel, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Create an InputReader that reads from a channel.
+   * @param  channel       A channel in blocking mode to read from.
+   * @param  bufferSize    The size of the buffer to use.
+   */
+  public InputReader(ReadableByteChannel channel, int bufferSize) {
+    this(new ChannelInputStream(channel), bufferSize);
   }
   
+  /**
+   * Starts reading the input stream ahead on a background thread which fills a ring of
+   * buffers while this reader parses, so that waiting on a slow stream such as a pipe or
+   * a socket overlaps with parsing. Closing the reader stops the background thread.
+   * @param buffers The number of buffers to read ahead into, at least two.
+   */
+  public void enablePrefetch(int buffers) {
+    if (buffers < 2)
+      throw new IllegalArgumentException();
+    if (stream instanceof PrefetchInputStream)
+      throw new IllegalStateException("Prefetching is already enabled");
+    stream = new PrefetchInputStream(stream, buffers, bufferSize);
+  }
+
+  /**
+   * Decompresses the input as gzip, such as a .gz file, before parsing it. The data is
+   * inflated straight into this reader's buffer. Call {@link #enablePrefetch(int)
+   * enablePrefetch} afterwards to decompress on a background thread, so decompressing
+   * and parsing run on two cores.
+   * @throws IllegalStateException if reading has started or decompression is already enabled.
+   */
+  public void enableGzip() {
+    enableDecompression(true);
+  }
+
+  /**
+   * Decompresses the input as zlib (deflate) data, such as written by a
+   * {@link java.util.zip.DeflaterOutputStream}, before parsing it.
+   * @throws IllegalStateException if reading has started or decompression is already enabled.
+   */
+  public void enableDeflate() {
+    enableDecompression(false);
+  }
+
+  private void enableDecompression(boolean gzip) {
+    if (numBytesRead != 0 || bufIndex != 0)
+      throw new IllegalStateException("Decompression must be enabled before reading");
+    if (stream instanceof InflatingInputStream)
+      throw new IllegalStateException("Decompression is already enabled");
+    stream = new InflatingInputStream(stream, gzip);
+  }
+
   /**
    *  Read values from the input stream until you reach a character with a 
    *  higher ASCII value than 'token'.
@@ -154,14 +299,27 @@ public class InputReader {
 
     // Seek to the first valid position index
     do {
+
+      // Usually the previous token consumed its delimiter and there is no junk at all
+      if (bufIndex < numBytesRead && (buf[bufIndex] & 0xff) > token) return 0;
+
+      // Skip eight bytes at a time while a whole word fits in the buffer
+      while(bufIndex + 8 <= numBytesRead) {
+        long mask = Swar.greaterThanMask(bufView.getLong(bufIndex), token);
+        if (mask != 0) {
+          bufIndex += Long.numberOfTrailingZeros(mask) >>> 3;
+          return 0;
+        }
+        bufIndex += 8;
+      }
       
       while(bufIndex < numBytesRead) {
-        if (buf[bufIndex] > token) return 0;
+        if ((buf[bufIndex] & 0xff) > token) return 0;
         bufIndex++;
       }
 
       // reload buffer
-      numBytesRead = stream.read(buf);
+      numBytesRead = fill();
       if (numBytesRead == EOF) return EOF;
       bufIndex = 0;
 
@@ -169,6 +327,20 @@ public class InputReader {
 
   }
   
+  /**
+   * Skips over any delimiters and reports whether another token follows.
+   * @return Returns false once only delimiters remain in the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  boolean hasMoreTokens() throws IOException {
+    return readJunk(SPACE) != EOF;
+  }
+
+  // Like hasMoreTokens, but in CSV mode tells whether another field follows
+  boolean hasMoreValues() throws IOException {
+    return csvClasses != null ? hasField() : readJunk(SPACE) != EOF;
+  }
+
   /**
    * Reads a single byte from the input stream.
    * @return The next byte in the input stream
@@ -185,7 +357,13 @@ public class InputReader {
    */
   public int nextInt() throws IOException {
     
+    if (csvClasses != null) {
+      long value = nextLongField();
+      if (stats != null) stats.add(InputReaderStats.INTS, 1);
+      return (int) value;
+    }
     if (readJunk(DASH-1) == EOF) throw new IOException();
+    if (stats != null) stats.add(InputReaderStats.INTS, 1);
     int sgn = 1, res = 0;
 
     c = buf[bufIndex];
@@ -193,10 +371,29 @@ public class InputReader {
 
     do {
 
+      // Parse eight digits at a time while a whole word fits in the buffer
+      while(bufIndex + 8 <= numBytesRead) {
+        long word = bufView.getLong(bufIndex);
+        long mask = Swar.nonDigitMask(word);
+        if (mask == 0) {
+          res = res * 100000000 + Swar.parseEightDigits(word);
+          bufIndex += 8;
+        } else {
+          int n = Long.numberOfTrailingZeros(mask) >>> 3;
+          if (n > 0) {
+            res = res * intPowers[n] + Swar.parseDigits(word, n);
+            bufIndex += n;
+          }
+          break;
+        }
+      }
+
       while(bufIndex < numBytesRead) {
-        if (buf[bufIndex] > SPACE) {
+        int b = buf[bufIndex] & 0xff;
+        if (b > SPACE) {
           res = (res<<3)+(res<<1);
-          res += ints[buf[bufIndex++]];
+          res += ints[b];
+          bufIndex++;
         } else {
           bufIndex++;
           return res*sgn;
@@ -204,7 +401,7 @@ public class InputReader {
       }
 
       // Reload buffer
-      numBytesRead = stream.read(buf);
+      numBytesRead = fill();
       if (numBytesRead == EOF) return res*sgn;
       bufIndex = 0;
 
@@ -219,7 +416,13 @@ public class InputReader {
    */
   public long nextLong() throws IOException {
     
+    if (csvClasses != null) {
+      long value = nextLongField();
+      if (stats != null) stats.add(InputReaderStats.LONGS, 1);
+      return value;
+    }
     if (readJunk(DASH-1) == EOF) throw new IOException();
+    if (stats != null) stats.add(InputReaderStats.LONGS, 1);
     int sgn = 1;
     long res = 0L;
     c = buf[bufIndex];
@@ -227,10 +430,29 @@ public class InputReader {
 
     do {
 
+      // Parse eight digits at a time while a whole word fits in the buffer
+      while(bufIndex + 8 <= numBytesRead) {
+        long word = bufView.getLong(bufIndex);
+        long mask = Swar.nonDigitMask(word);
+        if (mask == 0) {
+          res = res * 100000000L + Swar.parseEightDigits(word);
+          bufIndex += 8;
+        } else {
+          int n = Long.numberOfTrailingZeros(mask) >>> 3;
+          if (n > 0) {
+            res = res * longPowers[n] + Swar.parseDigits(word, n);
+            bufIndex += n;
+          }
+          break;
+        }
+      }
+
       while(bufIndex < numBytesRead) {
-        if (buf[bufIndex] > SPACE) {
+        int b = buf[bufIndex] & 0xff;
+        if (b > SPACE) {
           res = (res<<3)+(res<<1);
-          res += ints[buf[bufIndex++]];
+          res += ints[b];
+          bufIndex++;
         } else {
           bufIndex++;
           return res*sgn;
@@ -238,7 +460,7 @@ public class InputReader {
       }
 
       // Reload buffer
-      numBytesRead = stream.read(buf);
+      numBytesRead = fill();
       if (numBytesRead == EOF) return res*sgn;
       bufIndex = 0;
 
@@ -247,12 +469,31 @@ public class InputReader {
   }
   
   /**
-   * Doubles the size of the internal char buffer for strings
+   * Finds the first new line character in the buffer at or after index from.
+   * @return The index of the new line or numBytesRead if there is none.
    */
-  private void doubleCharBufferSize() {
-    char[] newBuffer = new char[charBuffer.length << 1];
-    for(int i = 0; i < charBuffer.length; i++) newBuffer[i] = charBuffer[i];
-    charBuffer = newBuffer;
+  private int indexOfNewLine(int from) {
+    while(from + 8 <= numBytesRead) {
+      long mask = Swar.matchMask(bufView.getLong(from), NEW_LINE);
+      if (mask != 0) return from + (Long.numberOfTrailingZeros(mask) >>> 3);
+      from += 8;
+    }
+    while(from < numBytesRead && buf[from] != NEW_LINE) from++;
+    return from;
+  }
+
+  /**
+   * Finds the first delimiter (any byte value <= 32) in the buffer at or after index from.
+   * @return The index of the delimiter or numBytesRead if there is none.
+   */
+  private int indexOfDelimiter(int from) {
+    while(from + 8 <= numBytesRead) {
+      long mask = Swar.greaterThanMask(bufView.getLong(from), SPACE) ^ Swar.HIGH_BITS;
+      if (mask != 0) return from + (Long.numberOfTrailingZeros(mask) >>> 3);
+      from += 8;
+    }
+    while(from < numBytesRead && (buf[from] & 0xff) > SPACE) from++;
+    return from;
   }
 
   /**
@@ -264,88 +505,1113 @@ public class InputReader {
    */
   public String nextLine() throws IOException {
 
-    try { c=read(); } catch (IOException e) { return null; }
-    if (c == NEW_LINE) return ""; // Empty line
-    if (c == EOF) return null; // EOF
-    
-    int i = 0;
-    charBuffer[i++] = (char)c;
-
-    do {
-
-      while(bufIndex < numBytesRead) {
-        if (buf[bufIndex] != NEW_LINE) {
-          if (i == charBuffer.length) doubleCharBufferSize();
-          charBuffer[i++] = (char) buf[bufIndex++];
-        } else {
-          bufIndex++;
-          return new String(charBuffer, 0, i);
-        }
-      }
-
-      // Reload buffer
-      numBytesRead = stream.read(buf);
-      if (numBytesRead == EOF)
-        return new String(charBuffer, 0, i);
+    if (numBytesRead == EOF) return null;
+    if (bufIndex >= numBytesRead) {
+      numBytesRead = fill();
       bufIndex = 0;
+      if (numBytesRead == EOF) return null;
+    }
 
-    } while(true);
+    if (stats != null) stats.add(InputReaderStats.LINES, 1);
+
+    // Find the end of the line and decode it straight from the buffer
+    int from = bufIndex, end = indexOfNewLine(from);
+    if (end == numBytesRead) {
+      int length = spill(true);
+      return Utf8.decode(tokenBuffer, tokenView, 0, length);
+    }
+    bufIndex = end + 1;
+    return Utf8.decode(buf, bufView, from, end);
 
   }
 
   // Reads a string of characters from the input stream. 
   // The delimiter separating a string of characters is set to be:
-  // any ASCII value <= 32 meaning any spaces, new lines, EOF, tabs...
+  // any byte value <= 32 meaning any spaces, new lines, EOF, tabs...
+  // Bytes above 127 are part of the string and decoded as UTF-8.
   public String nextString() throws IOException {
+    if (csvClasses != null) return nextFieldString();
     if (numBytesRead == EOF) return null;
     if (readJunk(SPACE) == EOF) return null;
+    if (stats != null) stats.add(InputReaderStats.STRINGS, 1);
+    if (stringCache != null) return nextCachedString();
+
+    // Find the end of the string and decode it straight from the buffer
+    int from = bufIndex, end = indexOfDelimiter(from);
+    if (end == numBytesRead) {
+      int length = spill(false);
+      return Utf8.decode(tokenBuffer, tokenView, 0, length);
+    }
+    bufIndex = end + 1;
+    return Utf8.decode(buf, bufView, from, end);
+  }
 
-    for(int i = 0;;) {
-      while(bufIndex < numBytesRead) {
-        if (buf[bufIndex] > SPACE) {
-          if (i == charBuffer.length) doubleCharBufferSize();
-          charBuffer[i++] = (char) buf[bufIndex++];
-        } else {
-          bufIndex++;
-          return new String(charBuffer, 0, i);
-        }
+  // Reads the next string through the string cache, the caller has already skipped the junk
+  private String nextCachedString() throws IOException {
+    byte[] src = buf;
+    ByteBuffer view = bufView;
+    int from = bufIndex, end = indexOfDelimiter(from);
+    if (end == numBytesRead) {
+      end = spill(false);
+      src = tokenBuffer;
+      view = tokenView;
+      from = 0;
+    } else {
+      bufIndex = end + 1;
+    }
+    return stringCache.intern(src, view, from, end);
+  }
+
+  // Reads the next CSV field as a String, or null when there are no more fields
+  private String nextFieldString() throws IOException {
+    if (!readField(field)) return null;
+    if (stats != null) stats.add(InputReaderStats.STRINGS, 1);
+    return field.toStringUtf8(stringCache);
+  }
+
+  /**
+   * Makes {@link #nextString() nextString()} and the string array methods return one
+   * canonical String per distinct token, looked up in the given cache straight from the
+   * bytes in the buffer. This saves time and memory when the same strings repeat a lot.
+   * @param cache The cache to use, which may be shared with other readers, or null to
+   * stop caching.
+   */
+  public void enableStringCache(StringCache cache) {
+    stringCache = cache;
+  }
+
+  /**
+   * Makes this reader count the bytes it reads, the time it spends waiting for the
+   * stream and the values it parses into the given stats. Without stats nothing is
+   * counted, and the only cost is a null check per value.
+   * @param stats The counters to add to, which may be shared with other readers used
+   * by the same thread, or null to stop counting. Readers split off by a parallel
+   * {@link #ints() ints()} stream are not counted.
+   */
+  public void enableStats(InputReaderStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Lets the buffer grow and shrink between minSize and maxSize to match what the stream
+   * actually returns. Whenever a couple of refills in a row fill the whole buffer (a
+   * local file, say) the buffer doubles, and whenever many refills in a row use at most
+   * a quarter of it (a socket handing out packets) it halves. The buffer is only
+   * replaced between refills, once all of its bytes have been consumed.
+   * @param minSize The smallest buffer size, at least 1.
+   * @param maxSize The largest buffer size, at least minSize.
+   */
+  public void enableAdaptiveBuffering(int minSize, int maxSize) {
+    if (minSize <= 0 || maxSize < minSize)
+      throw new IllegalArgumentException();
+    minBufferSize = minSize;
+    maxBufferSize = maxSize;
+    fullReads = sparseReads = 0;
+  }
+
+  // Picks the size of the buffer for the next refill from the size of the last one
+  private void adaptBufferSize() {
+    int size = buf.length, last = numBytesRead;
+    if (last == size) {
+      sparseReads = 0;
+      if (++fullReads >= GROW_AFTER) size = (int) Math.min(maxBufferSize, 2L * size);
+    } else if (last > 0 && last <= size / 4) {
+      fullReads = 0;
+      if (++sparseReads >= SHRINK_AFTER) size = Math.max(minBufferSize, size / 2);
+    } else {
+      fullReads = sparseReads = 0;
+    }
+    size = Math.max(minBufferSize, Math.min(maxBufferSize, size));
+    if (size != buf.length) {
+      buf = new byte[size];
+      bufView = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+      bufferSize = size;
+      fullReads = sparseReads = 0;
+      if (stats != null) stats.add(InputReaderStats.BUFFER_RESIZES, 1);
+    }
+  }
+
+  // Refills the buffer from the stream, returning the number of bytes read or EOF
+  private int fill() throws IOException {
+    if (numBytesRead > 0) bufferStart += numBytesRead;
+    if (maxBufferSize != 0) adaptBufferSize();
+    if (Jfr.refillEnabled()) return Jfr.refill(stream, buf, stats);
+    return stats == null ? stream.read(buf) : stats.read(stream, buf);
+  }
+
+  /**
+   * Copies the token or line starting at bufIndex, which runs past the end of the buffer,
+   * into the token buffer and keeps refilling the buffer until the token or line ends.
+   * @param toNewLine Whether the span ends at a new line rather than at any delimiter.
+   * @return The length of the span in the token buffer.
+   */
+  private int spill(boolean toNewLine) throws IOException {
+    int n = 0;
+    do {
+      int end = toNewLine ? indexOfNewLine(bufIndex) : indexOfDelimiter(bufIndex);
+      if (n + (end - bufIndex) > tokenBuffer.length) {
+        tokenBuffer = Arrays.copyOf(tokenBuffer, Math.max(tokenBuffer.length << 1, n + (end - bufIndex)));
+        tokenView = ByteBuffer.wrap(tokenBuffer).order(ByteOrder.LITTLE_ENDIAN);
+        if (stats != null) stats.add(InputReaderStats.SCRATCH_BUFFER_GROWTHS, 1);
+        Jfr.longToken(toNewLine, n + (end - bufIndex), tokenBuffer.length);
+      }
+      System.arraycopy(buf, bufIndex, tokenBuffer, n, end - bufIndex);
+      n += end - bufIndex;
+      if (end < numBytesRead) {
+        bufIndex = end + 1;
+        return n;
       }
 
       // Reload buffer
-      numBytesRead = stream.read(buf);
-      if (numBytesRead == EOF) return new String(charBuffer, 0, i);
+      numBytesRead = fill();
+      bufIndex = 0;
+    } while(numBytesRead != EOF);
+    return n;
+  }
+
+  /**
+   * Switches the reader to CSV mode, for comma, tab or otherwise separated values. Every
+   * byte in separators ends a field, a new line ("\n" or "\r\n") ends a record, and a
+   * field may be enclosed in double quotes to hold separators, new lines or quotes
+   * (written twice). Unlike whitespace, each separator ends exactly one field, so empty
+   * fields are kept.
+   *
+   * In CSV mode {@link #nextString() nextString()}, {@link #nextToken(ByteSlice) nextToken},
+   * the number methods and the array methods all read one field at a time, and
+   * {@link #endOfRecord() endOfRecord()} tells when a record is complete. Numbers may be
+   * surrounded by spaces, and a field which is not a number throws a NumberFormatException.
+   * {@link #nextLine() nextLine()} still reads a whole line, which is handy to skip a header.
+   * @param separators The field separators, such as "," or "\t". They cannot be new
+   * lines or double quotes.
+   */
+  public void enableCsv(String separators) {
+    if (separators == null || separators.isEmpty())
+      throw new IllegalArgumentException();
+    byte[] classes = new byte[256];
+    classes[NEW_LINE] = RECORD_END;
+    for (int i = 0; i < separators.length(); i++) {
+      char ch = separators.charAt(i);
+      if (ch > 127 || ch == '\n' || ch == '\r' || ch == QUOTE)
+        throw new IllegalArgumentException("Invalid separator: " + ch);
+      classes[ch] = SEPARATOR;
+    }
+    this.separators = separators.getBytes(StandardCharsets.US_ASCII);
+    this.csvClasses = classes;
+    endOfRecord = true;
+    fieldPending = false;
+  }
+
+  /**
+   * Tells whether the last field read in CSV mode was the last one of its record, so
+   * the next field starts a new record.
+   */
+  public boolean endOfRecord() {
+    return endOfRecord;
+  }
+
+  /**
+   * Finds the first separator or new line in the buffer at or after index from.
+   * @return The index of the byte or numBytesRead if there is none.
+   */
+  private int indexOfFieldEnd(int from) {
+    byte[] separators = this.separators;
+    if (separators.length <= 4) {
+      while(from + 8 <= numBytesRead) {
+        long word = bufView.getLong(from);
+        long mask = Swar.matchMask(word, NEW_LINE);
+        for (byte separator : separators) mask |= Swar.matchMask(word, separator);
+        if (mask != 0) return from + (Long.numberOfTrailingZeros(mask) >>> 3);
+        from += 8;
+      }
+    }
+    byte[] classes = csvClasses;
+    while(from < numBytesRead && classes[buf[from] & 0xff] == FIELD_BYTE) from++;
+    return from;
+  }
+
+  // Records whether the field ending at index end of the buffer ended its record
+  private void endField(int end) {
+    endOfRecord = csvClasses[buf[end] & 0xff] == RECORD_END;
+    fieldPending = !endOfRecord;
+    bufIndex = end + 1;
+  }
+
+  // Refills the buffer if needed and tells whether another CSV field follows
+  private boolean hasField() throws IOException {
+    if (bufIndex >= numBytesRead && numBytesRead != EOF) {
+      numBytesRead = fill();
+      bufIndex = 0;
+    }
+    return numBytesRead != EOF || fieldPending;
+  }
+
+  /**
+   * Reads the next CSV field into the slice, without its quotes. The slice points into
+   * the buffer unless the field crosses a refill or holds doubled quotes, in which case
+   * it is copied into the token buffer.
+   * @return Returns false when there are no more fields.
+   */
+  private boolean readField(ByteSlice out) throws IOException {
+    if (!hasField()) return false;
+    if (numBytesRead == EOF) {
+      fieldPending = false;
+      endOfRecord = true;
+      out.set(buf, bufView, 0, 0);
+      return true;
+    }
+
+    int from = bufIndex;
+    if (buf[from] != QUOTE) {
+      int end = indexOfFieldEnd(from);
+      if (end < numBytesRead) {
+        int to = end;
+        if (buf[end] == NEW_LINE && to > from && buf[to - 1] == '\r') to--;
+        endField(end);
+        out.set(buf, bufView, from, to - from);
+        return true;
+      }
+    } else {
+      // A quoted field without doubled quotes which ends inside the buffer
+      int close = from + 1;
+      while(close < numBytesRead && buf[close] != QUOTE) close++;
+      int end = close + 1;
+      if (end < numBytesRead && buf[end] == '\r' && end + 1 < numBytesRead && buf[end + 1] == NEW_LINE) end++;
+      if (end < numBytesRead && csvClasses[buf[end] & 0xff] != FIELD_BYTE) {
+        endField(end);
+        out.set(buf, bufView, from + 1, close - from - 1);
+        return true;
+      }
+    }
+
+    int length = spillField();
+    out.set(tokenBuffer, tokenView, 0, length);
+    return true;
+  }
+
+  // Returns the next byte of the stream for spillField(), refilling the buffer as needed
+  private int nextFieldByte() throws IOException {
+    if (bufIndex >= numBytesRead) {
+      if (numBytesRead == EOF) return -1;
+      numBytesRead = fill();
       bufIndex = 0;
+      if (numBytesRead == EOF) return -1;
+    }
+    return buf[bufIndex++] & 0xff;
+  }
+
+  /**
+   * Copies the field starting at bufIndex into the token buffer one byte at a time,
+   * removing its quotes and undoubling the quotes inside it. This handles the fields
+   * which cross a refill or hold doubled quotes.
+   * @return The length of the field in the token buffer.
+   */
+  private int spillField() throws IOException {
+    int n = 0, b = nextFieldByte();
+    boolean inQuotes = b == QUOTE, carriageReturn = false;
+    if (inQuotes) b = nextFieldByte();
+    while (true) {
+      if (b == -1) {
+        endOfRecord = true;
+        fieldPending = false;
+        break;
+      }
+      if (inQuotes) {
+        if (b == QUOTE) {
+          b = nextFieldByte();
+          if (b != QUOTE) {
+            inQuotes = false;
+            continue;
+          }
+        }
+      } else if (csvClasses[b] != FIELD_BYTE) {
+        endOfRecord = csvClasses[b] == RECORD_END;
+        fieldPending = !endOfRecord;
+        if (endOfRecord && carriageReturn) n--;
+        break;
+      }
+      carriageReturn = !inQuotes && b == '\r';
+      if (n == tokenBuffer.length) {
+        tokenBuffer = Arrays.copyOf(tokenBuffer, n << 1);
+        tokenView = ByteBuffer.wrap(tokenBuffer).order(ByteOrder.LITTLE_ENDIAN);
+        if (stats != null) stats.add(InputReaderStats.SCRATCH_BUFFER_GROWTHS, 1);
+        Jfr.longToken(false, n, tokenBuffer.length);
+      }
+      tokenBuffer[n++] = (byte) b;
+      b = nextFieldByte();
     }
+    return n;
   }
 
-  // Returns an exact value a double value from the input stream.
+  // Reads the next CSV field for one of the number methods, without surrounding spaces
+  private ByteSlice nextNumberField() throws IOException {
+    if (!readField(field)) throw new IOException();
+    field.trim();
+    return field;
+  }
+
+  /**
+   * Parses an optional '-' and the digits which follow it from index from of the buffer,
+   * without refilling it, and leaves the index of the first byte after them in scanEnd.
+   * @return The value, which is only meaningful if at least one digit was read.
+   */
+  private long scanLong(int from) {
+    int i = from;
+    boolean negative = i < numBytesRead && buf[i] == DASH;
+    if (negative) i++;
+    long res = 0;
+    while(i + 8 <= numBytesRead) {
+      long word = bufView.getLong(i);
+      long mask = Swar.nonDigitMask(word);
+      if (mask == 0) {
+        res = res * 100000000L + Swar.parseEightDigits(word);
+        i += 8;
+      } else {
+        int n = Long.numberOfTrailingZeros(mask) >>> 3;
+        if (n > 0) {
+          res = res * longPowers[n] + Swar.parseDigits(word, n);
+          i += n;
+        }
+        break;
+      }
+    }
+    while(i < numBytesRead && buf[i] >= '0' && buf[i] <= '9') res = res * 10 + buf[i++] - '0';
+    scanEnd = i > from + (negative ? 1 : 0) ? i : from;
+    return negative ? -res : res;
+  }
+
+  /**
+   * Finds the end of the CSV field whose value scanLong(from) just parsed: the index of
+   * the separator or new line right after its digits (skipping a '\r' before a new
+   * line), or -1 if the field is not a plain integer which ends inside the buffer.
+   */
+  private int csvNumberEnd(int from) {
+    int end = scanEnd;
+    if (end == from) return -1;
+    if (end < numBytesRead && buf[end] == '\r' && end + 1 < numBytesRead && buf[end + 1] == NEW_LINE) end++;
+    return end < numBytesRead && csvClasses[buf[end] & 0xff] != FIELD_BYTE ? end : -1;
+  }
+
+  /**
+   * Parses the next CSV field as a long. A plain unquoted integer which ends inside the
+   * buffer, by far the most common field, is parsed in the same pass which finds its
+   * end; anything else goes through {@link #nextNumberField() nextNumberField()}.
+   */
+  private long nextLongField() throws IOException {
+    int from = bufIndex;
+    long value = scanLong(from);
+    int end = csvNumberEnd(from);
+    if (end < 0) return nextNumberField().parseLong();
+    endField(end);
+    return value;
+  }
+
+
+  /**
+   * Reads the next token, delimited like {@link #nextString() nextString()}, into a
+   * reusable slice instead of a new String. The slice points straight into the buffer
+   * unless the token crosses a buffer refill, in which case it is copied into a scratch
+   * buffer. Either way the slice is only valid until the next call on this reader.
+   * @param out The slice to point at the token.
+   * @return Returns false and leaves the slice untouched when there are no more tokens.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public boolean nextToken(ByteSlice out) throws IOException {
+    if (csvClasses != null) {
+      if (!readField(out)) return false;
+      if (stats != null) stats.add(InputReaderStats.TOKENS, 1);
+      return true;
+    }
+    if (readJunk(SPACE) == EOF) return false;
+    if (stats != null) stats.add(InputReaderStats.TOKENS, 1);
+    int from = bufIndex, end = indexOfDelimiter(from);
+    if (end == numBytesRead) {
+      int length = spill(false);
+      out.set(tokenBuffer, tokenView, 0, length);
+    } else {
+      bufIndex = end + 1;
+      out.set(buf, bufView, from, end - from);
+    }
+    return true;
+  }
+
+  /**
+   * Reads the next line, without its new line character, into a reusable slice
+   * instead of a new String. The slice is only valid until the next call on this reader.
+   * @param out The slice to point at the line.
+   * @return Returns false and leaves the slice untouched when there are no more lines.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public boolean nextLine(ByteSlice out) throws IOException {
+    if (numBytesRead == EOF) return false;
+    if (bufIndex >= numBytesRead) {
+      numBytesRead = fill();
+      bufIndex = 0;
+      if (numBytesRead == EOF) return false;
+    }
+    if (stats != null) stats.add(InputReaderStats.LINES, 1);
+    int from = bufIndex, end = indexOfNewLine(from);
+    if (end == numBytesRead) {
+      int length = spill(true);
+      out.set(tokenBuffer, tokenView, 0, length);
+    } else {
+      bufIndex = end + 1;
+      out.set(buf, bufView, from, end - from);
+    }
+    return true;
+  }
+
+  /**
+   * Skips the next n tokens, delimited like {@link #nextString() nextString()}, or n
+   * fields in CSV mode. Tokens are only scanned for their end, never copied or decoded.
+   * @return The number of tokens skipped, which is less than n only at the end of the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public long skipTokens(long n) throws IOException {
+    if (n < 0) throw new IllegalArgumentException();
+    long skipped = 0;
+    if (csvClasses != null) {
+      while (skipped < n && readField(field)) skipped++;
+      return skipped;
+    }
+    while (skipped < n && readJunk(SPACE) != EOF) {
+      skipped++;
+      int end = indexOfDelimiter(bufIndex);
+      while (end == numBytesRead) {
+        numBytesRead = fill();
+        bufIndex = 0;
+        if (numBytesRead == EOF) return skipped;
+        end = indexOfDelimiter(0);
+      }
+      bufIndex = end + 1;
+    }
+    return skipped;
+  }
+
+  /**
+   * Skips the next n lines, like n calls to {@link #nextLine() nextLine()} but without
+   * copying them anywhere.
+   * @return The number of lines skipped, which is less than n only at the end of the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public long skipLines(long n) throws IOException {
+    if (n < 0) throw new IllegalArgumentException();
+    long skipped = 0;
+    while (skipped < n) {
+      if (bufIndex >= numBytesRead) {
+        if (numBytesRead == EOF) break;
+        numBytesRead = fill();
+        bufIndex = 0;
+        if (numBytesRead == EOF) break;
+      }
+      skipped++;
+      int end = indexOfNewLine(bufIndex);
+      while (end == numBytesRead) {
+        numBytesRead = fill();
+        bufIndex = 0;
+        if (numBytesRead == EOF) return skipped;
+        end = indexOfNewLine(0);
+      }
+      bufIndex = end + 1;
+    }
+    return skipped;
+  }
+
+  /**
+   * Skips the next n bytes. Bytes already in the buffer are dropped. The rest are
+   * skipped in place for memory mapped files and file channels, which move their read
+   * position without reading, and read through and discarded for every other stream,
+   * since pipes cannot seek and FileInputStream skips past the end of a file.
+   * @return The number of bytes skipped, which is less than n only at the end of the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public long skipBytes(long n) throws IOException {
+    if (n < 0) throw new IllegalArgumentException();
+    if (numBytesRead == EOF) return 0;
+    long skipped = Math.min(n, Math.max(0, numBytesRead - bufIndex));
+    bufIndex += (int) skipped;
+    if (skipped == n) return n;
+
+    // The buffer is used up, so move past it and skip straight in the stream
+    bufferStart += Math.max(0, numBytesRead);
+    bufIndex = numBytesRead = 0;
+    boolean seekable = stream instanceof MappedFileInputStream ||
+                       stream instanceof ChannelInputStream && ((ChannelInputStream) stream).seekable();
+    while (skipped < n) {
+      // Seekable streams stop at the end of the file, where they return 0
+      long k = seekable ? stream.skip(n - skipped) : 0;
+      if (k > 0) {
+        skipped += k;
+        bufferStart += k;
+        continue;
+      }
+      numBytesRead = fill();
+      bufIndex = 0;
+      if (numBytesRead == EOF) break;
+      int m = (int) Math.min(n - skipped, numBytesRead);
+      bufIndex = m;
+      skipped += m;
+      if (skipped < n) {
+        bufferStart += numBytesRead;
+        bufIndex = numBytesRead = 0;
+      }
+    }
+    return skipped;
+  }
+
+  /**
+   * Reads a double value from the input stream. The value is parsed straight out of the
+   * buffer and is always the double closest to the decimal number, exactly like
+   * {@link Double#parseDouble(String) Double.parseDouble}. Exponents, '+' signs, NaN
+   * and Infinity are all supported.
+   * @return The next double value in the stream.
+   * @throws IOException Throws exception at end of stream.
+   */
   public double nextDouble() throws IOException {
-    String doubleVal = nextString();
-    if (doubleVal == null) throw new IOException();
-    return Double.valueOf(doubleVal);
+    if (csvClasses != null) {
+      ByteSlice f = nextNumberField();
+      if (stats != null) stats.add(InputReaderStats.DOUBLES, 1);
+      return f.parseDouble();
+    }
+    if (readJunk(SPACE) == EOF) throw new IOException();
+    if (stats != null) stats.add(InputReaderStats.DOUBLES, 1);
+    int from = bufIndex, end = indexOfDelimiter(from);
+    if (end == numBytesRead) {
+      int length = spill(false);
+      return DecimalToDouble.parseDouble(tokenBuffer, tokenView, 0, length);
+    }
+    bufIndex = end + 1;
+    return DecimalToDouble.parseDouble(buf, bufView, from, end);
   }
 
-  // Very quickly reads a double value from the input stream (~3x faster than nextDouble()). However,
-  // this method may provide a slightly less accurate reading than .nextDouble() if there are a lot
-  // of digits (~16+). In particular, it will only read double values with at most 21 digits after
-  // the decimal point and the reading my be as inaccurate as ~5*10^-16 from the true value.
+  /**
+   * Reads a float value from the input stream, rounded exactly like
+   * {@link Float#parseFloat(String) Float.parseFloat}.
+   * @return The next float value in the stream.
+   * @throws IOException Throws exception at end of stream.
+   */
+  public float nextFloat() throws IOException {
+    if (csvClasses != null) {
+      ByteSlice f = nextNumberField();
+      if (stats != null) stats.add(InputReaderStats.FLOATS, 1);
+      return f.parseFloat();
+    }
+    if (readJunk(SPACE) == EOF) throw new IOException();
+    if (stats != null) stats.add(InputReaderStats.FLOATS, 1);
+    int from = bufIndex, end = indexOfDelimiter(from);
+    if (end == numBytesRead) {
+      int length = spill(false);
+      return DecimalToDouble.parseFloat(tokenBuffer, tokenView, 0, length);
+    }
+    bufIndex = end + 1;
+    return DecimalToDouble.parseFloat(buf, bufView, from, end);
+  }
+
+  // Reads a double value from the input stream. This method used to trade accuracy for
+  // speed, but nextDouble() is now both exact and faster so the two are the same.
   public double nextDoubleFast() throws IOException {
-    c = read(); int sgn = 1;
-    while (c <= SPACE) c = read(); // while c is either: ' ', '\n', EOF
-    if (c == DASH) { sgn = -1; c = read(); }
-    double res = 0.0;
-    // while c is not: ' ', '\n', '.' or -1
-    while (c > DOT) {res *= 10.0; res += ints[c]; c = read(); }
-    if (c == DOT) {
-      int i = 0; c = read();
-      // while c is digit and we are less than the maximum decimal precision
-      while (c > SPACE && i < MAX_DECIMAL_PRECISION) {
-        res += doubles[ints[c]][i++]; c = read();
+    return nextDouble();
+  }
+
+  /**
+   * Reads up to len integers into dst starting at index off without allocating. Tokens 
+   * which lie entirely inside the buffer are parsed in one tight loop, and only tokens
+   * which run into a buffer refill go through {@link #nextInt() nextInt()}.
+   * @return The number of integers read, which is less than len only at the end of the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public int readInts(int[] dst, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > dst.length - off)
+      throw new IndexOutOfBoundsException();
+    if (csvClasses != null) {
+      int i = off, end = off + len;
+      while (i < end && hasField()) dst[i++] = nextInt();
+      return i - off;
+    }
+    int i = off, end = off + len, slow = 0;
+
+    tokens: while (i < end) {
+
+      byte[] buf = this.buf;
+      ByteBuffer bufView = this.bufView;
+      int p = bufIndex, limit = numBytesRead;
+
+      // Skip the junk before the token
+      while (p < limit && (buf[p] & 0xff) < DASH) p++;
+
+      if (p < limit) {
+        int sgn = 1, res = 0;
+        if (buf[p] == DASH) { sgn = -1; p++; }
+
+        while (p + 8 <= limit) {
+          long word = bufView.getLong(p);
+          long mask = Swar.nonDigitMask(word);
+          if (mask == 0) {
+            res = res * 100000000 + Swar.parseEightDigits(word);
+            p += 8;
+          } else {
+            int n = Long.numberOfTrailingZeros(mask) >>> 3;
+            if (n > 0) {
+              res = res * intPowers[n] + Swar.parseDigits(word, n);
+              p += n;
+            }
+            break;
+          }
+        }
+
+        while (p < limit) {
+          int b = buf[p++] & 0xff;
+          if (b > SPACE) {
+            res = (res<<3)+(res<<1);
+            res += ints[b];
+          } else {
+            dst[i++] = res*sgn;
+            bufIndex = p;
+            continue tokens;
+          }
+        }
+      }
+
+      // The token runs into the end of the buffer so let nextInt() refill it
+      if (readJunk(DASH-1) == EOF) break;
+      dst[i++] = nextInt();
+      slow++;
+
+    }
+
+    if (stats != null) stats.add(InputReaderStats.INTS, i - off - slow);
+    return i - off;
+  }
+
+  // Fills dst with integers, returning how many were read
+  public int readInts(int[] dst) throws IOException {
+    return readInts(dst, 0, dst.length);
+  }
+
+  /**
+   * Reads up to len longs into dst starting at index off without allocating. Tokens 
+   * which lie entirely inside the buffer are parsed in one tight loop, and only tokens
+   * which run into a buffer refill go through {@link #nextLong() nextLong()}.
+   * @return The number of longs read, which is less than len only at the end of the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public int readLongs(long[] dst, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > dst.length - off)
+      throw new IndexOutOfBoundsException();
+    if (csvClasses != null) {
+      int i = off, end = off + len;
+      while (i < end && hasField()) dst[i++] = nextLong();
+      return i - off;
+    }
+    int i = off, end = off + len, slow = 0;
+
+    tokens: while (i < end) {
+
+      byte[] buf = this.buf;
+      ByteBuffer bufView = this.bufView;
+      int p = bufIndex, limit = numBytesRead;
+
+      // Skip the junk before the token
+      while (p < limit && (buf[p] & 0xff) < DASH) p++;
+
+      if (p < limit) {
+        int sgn = 1;
+        long res = 0L;
+        if (buf[p] == DASH) { sgn = -1; p++; }
+
+        while (p + 8 <= limit) {
+          long word = bufView.getLong(p);
+          long mask = Swar.nonDigitMask(word);
+          if (mask == 0) {
+            res = res * 100000000L + Swar.parseEightDigits(word);
+            p += 8;
+          } else {
+            int n = Long.numberOfTrailingZeros(mask) >>> 3;
+            if (n > 0) {
+              res = res * longPowers[n] + Swar.parseDigits(word, n);
+              p += n;
+            }
+            break;
+          }
+        }
+
+        while (p < limit) {
+          int b = buf[p++] & 0xff;
+          if (b > SPACE) {
+            res = (res<<3)+(res<<1);
+            res += ints[b];
+          } else {
+            dst[i++] = res*sgn;
+            bufIndex = p;
+            continue tokens;
+          }
+        }
+      }
+
+      // The token runs into the end of the buffer so let nextLong() refill it
+      if (readJunk(DASH-1) == EOF) break;
+      dst[i++] = nextLong();
+      slow++;
+
+    }
+
+    if (stats != null) stats.add(InputReaderStats.LONGS, i - off - slow);
+    return i - off;
+  }
+
+  // Fills dst with longs, returning how many were read
+  public int readLongs(long[] dst) throws IOException {
+    return readLongs(dst, 0, dst.length);
+  }
+
+  /**
+   * Reads up to len doubles into dst starting at index off.
+   * @return The number of doubles read, which is less than len only at the end of the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public int readDoubles(double[] dst, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > dst.length - off)
+      throw new IndexOutOfBoundsException();
+    if (csvClasses != null) {
+      int i = off, end = off + len;
+      while (i < end && hasField()) dst[i++] = nextDouble();
+      return i - off;
+    }
+    int i = off, end = off + len;
+    while (i < end && readJunk(SPACE) != EOF) dst[i++] = nextDouble();
+    return i - off;
+  }
+
+  // Fills dst with doubles, returning how many were read
+  public int readDoubles(double[] dst) throws IOException {
+    return readDoubles(dst, 0, dst.length);
+  }
+
+  /**
+   * Reads up to len byte values into dst starting at index off.
+   * @return The number of bytes read, which is less than len only at the end of the stream.
+   * @throws IOException Throws exception when the stream cannot be read.
+   */
+  public int readBytes(byte[] dst, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > dst.length - off)
+      throw new IndexOutOfBoundsException();
+    if (csvClasses != null) {
+      int i = off, end = off + len;
+      while (i < end && hasField()) dst[i++] = nextByte();
+      return i - off;
+    }
+    int i = off, end = off + len;
+    while (i < end && readJunk(DASH-1) != EOF) dst[i++] = nextByte();
+    return i - off;
+  }
+
+  // Fills dst with byte values, returning how many were read
+  public int readBytes(byte[] dst) throws IOException {
+    return readBytes(dst, 0, dst.length);
+  }
+  /**
+   * Reads up to batch.capacity() rows into the batch, replacing what it held. The
+   * fields of each row are read in schema order like the matching nextInt(), nextLong(),
+   * nextDouble() or nextString() calls would, in whitespace or CSV mode, but they land
+   * straight in the batch's column arrays.
+   *
+   * Whole rows in the buffer are read by one loop which switches on the column types
+   * and parses each field in place, without the checks for refills and the end of the
+   * stream every next call makes. Only rows which cross a buffer refill, and rows with
+   * quoted fields or unusual numbers, are read through the next methods.
+   * @return The number of rows read, which is less than the capacity only at the end
+   * of the stream.
+   * @throws IOException Throws exception when the stream ends in the middle of a row.
+   */
+  public int readBatch(RowBatch batch) throws IOException {
+    if (batch == null) throw new IllegalArgumentException();
+    int capacity = batch.capacity(), rows = 0;
+
+    while (rows < capacity && (csvClasses != null ? hasField() : readJunk(SPACE) != EOF)) {
+      int n = csvClasses != null ? readCsvRows(batch, rows, capacity - rows) : readRows(batch, rows, capacity - rows);
+      if (n == 0) readRow(batch, rows++);
+      rows += n;
+    }
+
+    // Let go of the Strings the previous batch held past the end of this one
+    if (rows < batch.size)
+      for (String[] column : batch.strings)
+        if (column != null) Arrays.fill(column, rows, batch.size, null);
+    batch.size = rows;
+    return rows;
+  }
+
+  /**
+   * Reads up to max whole rows which lie in the buffer from bufIndex on into the batch
+   * from row on, stopping before a row which crosses a refill or holds a number nextInt()
+   * or nextLong() would have to handle.
+   * @return The number of rows read.
+   */
+  private int readRows(RowBatch batch, int row, int max) {
+    byte[] buf = this.buf, types = batch.types;
+    ByteBuffer view = bufView;
+    int i = bufIndex, rows = 0;
+
+    rows: for (; rows < max; rows++) {
+      int rowStart = i, r = row + rows;
+      for (int col = 0; col < types.length; col++) {
+        while(i < numBytesRead && (buf[i] & 0xff) <= SPACE) i++;
+        int end;
+        switch (types[col]) {
+          case RowBatch.INT:
+          case RowBatch.LONG:
+            long value = scanLong(i);
+            end = scanEnd;
+            if (end == i || end == numBytesRead || (buf[end] & 0xff) > SPACE) { i = rowStart; break rows; }
+            if (types[col] == RowBatch.INT) batch.ints[col][r] = (int) value;
+            else batch.longs[col][r] = value;
+            break;
+          case RowBatch.DOUBLE:
+            end = indexOfDelimiter(i);
+            if (end == numBytesRead) { i = rowStart; break rows; }
+            batch.doubles[col][r] = DecimalToDouble.parseDouble(buf, view, i, end);
+            break;
+          default:
+            end = indexOfDelimiter(i);
+            if (end == numBytesRead) { i = rowStart; break rows; }
+            batch.strings[col][r] = stringCache != null ? stringCache.intern(buf, view, i, end) : Utf8.decode(buf, view, i, end);
+        }
+        i = end + 1;
+      }
+    }
+
+    bufIndex = i;
+    if (stats != null) batch.count(stats, rows);
+    return rows;
+  }
+
+  // Like readRows for CSV fields, which also stops before a row with a quoted field
+  private int readCsvRows(RowBatch batch, int row, int max) {
+    byte[] buf = this.buf, types = batch.types;
+    ByteBuffer view = bufView;
+    int i = bufIndex, rows = 0;
+    boolean endOfRecord = this.endOfRecord;
+
+    rows: for (; rows < max; rows++) {
+      int rowStart = i, r = row + rows;
+      boolean rowEndOfRecord = endOfRecord;
+      for (int col = 0; col < types.length; col++) {
+        int end;
+        switch (types[col]) {
+          case RowBatch.INT:
+          case RowBatch.LONG:
+            long value = scanLong(i);
+            end = csvNumberEnd(i);
+            if (end < 0) { i = rowStart; endOfRecord = rowEndOfRecord; break rows; }
+            if (types[col] == RowBatch.INT) batch.ints[col][r] = (int) value;
+            else batch.longs[col][r] = value;
+            break;
+          default:
+            end = i < numBytesRead && buf[i] != QUOTE ? indexOfFieldEnd(i) : numBytesRead;
+            if (end == numBytesRead) { i = rowStart; endOfRecord = rowEndOfRecord; break rows; }
+            int from = i, to = end;
+            if (buf[end] == NEW_LINE && to > from && buf[to - 1] == '\r') to--;
+            if (types[col] == RowBatch.DOUBLE) {
+              while(from < to && (buf[from] & 0xff) <= SPACE) from++;
+              while(to > from && (buf[to - 1] & 0xff) <= SPACE) to--;
+              batch.doubles[col][r] = DecimalToDouble.parseDouble(buf, view, from, to);
+            } else {
+              batch.strings[col][r] = stringCache != null ? stringCache.intern(buf, view, from, to) : Utf8.decode(buf, view, from, to);
+            }
+        }
+        endOfRecord = buf[end] == NEW_LINE;
+        i = end + 1;
       }
     }
-    return res * sgn;
+
+    bufIndex = i;
+    if (rows > 0) {
+      this.endOfRecord = endOfRecord;
+      fieldPending = !endOfRecord;
+    }
+    if (stats != null) batch.count(stats, rows);
+    return rows;
   }
 
+  // Reads one row into the batch field by field, for rows the buffer does not hold whole
+  private void readRow(RowBatch batch, int row) throws IOException {
+    byte[] types = batch.types;
+    for (int col = 0; col < types.length; col++) {
+      switch (types[col]) {
+        case RowBatch.INT: batch.ints[col][row] = nextInt(); break;
+        case RowBatch.LONG: batch.longs[col][row] = nextLong(); break;
+        case RowBatch.DOUBLE: batch.doubles[col][row] = nextDouble(); break;
+        default:
+          String str = nextString();
+          if (str == null) throw new IOException("The last row has " + col + " of " + types.length + " columns");
+          batch.strings[col][row] = str;
+      }
+    }
+  }
+
+  /**
+   * Reads up to batch.capacity() fixed-width records into the batch, replacing what it
+   * held. Each field is parsed straight from its offset in the record: ints and longs
+   * and doubles after dropping the spaces padding them, and Strings after dropping the
+   * spaces which pad them on the right. Nothing is scanned for delimiters, and whole
+   * records in the buffer are read by one loop; a record which crosses a buffer refill
+   * is first copied to the scratch buffer. This method ignores CSV mode.
+   *
+   * The last record of the stream may lack its terminator, but not end with part of it.
+   * When a bad record follows some good ones, the good records are returned first and
+   * the next call throws.
+   * @param layout    The layout of the records.
+   * @param batch     A batch whose columns are the layout's fields which are read, as
+   *                  made by {@link FixedWidthLayout#newBatch(int)}.
+   * @return The number of records read, which is less than the capacity only at the end
+   * of the stream.
+   * @throws IOException Throws exception when a record does not end with the layout's
+   * terminator, which means the layout does not match the data, or when the stream
+   * ends in the middle of a record.
+   * @throws NumberFormatException if a numeric field is blank or not a number.
+   */
+  public int readBatch(FixedWidthLayout layout, RowBatch batch) throws IOException {
+    if (layout == null || batch == null) throw new IllegalArgumentException();
+    if (!Arrays.equals(layout.types, batch.types))
+      throw new IllegalArgumentException("The batch does not have the columns of the layout");
+    if (badRecord != null) throw new IOException(badRecord);
+    int capacity = batch.capacity(), length = layout.recordLength, rows = 0;
+
+    while (rows < capacity) {
+      if (numBytesRead - bufIndex >= length) {
+        int n = Math.min(capacity - rows, (numBytesRead - bufIndex) / length);
+        int good = readRecords(layout, buf, bufView, bufIndex, n, batch, rows, true);
+        bufIndex += good * length;
+        rows += good;
+
+        // The bad record stays in the buffer, so the next call fails on it
+        if (good < n) {
+          if (rows > 0) break;
+          throw new IOException("The record at offset " + position() + " does not end with the terminator of the layout");
+        }
+      } else {
+        long offset = position();
+        int copied = spillRecord(length);
+        if (copied == 0) break;
+        String error = null;
+        if (copied < layout.fieldsLength)
+          error = "The last record has " + copied + " of " + length + " bytes";
+        else if (copied < length && copied > layout.fieldsLength)
+          error = "The last record ends with " + (copied - layout.fieldsLength) + " of the " + (length - layout.fieldsLength) + " bytes of the terminator";
+        else if (readRecords(layout, tokenBuffer, tokenView, 0, 1, batch, rows, copied == length) == 0)
+          error = "The record at offset " + offset + " does not end with the terminator of the layout";
+        if (error == null) {
+          rows++;
+          continue;
+        }
+
+        // The record has left the buffer, so remember why it was bad for the next calls
+        badRecord = error;
+        if (rows == 0) throw new IOException(error);
+        break;
+      }
+    }
+
+    if (stats != null) batch.count(stats, rows);
+    if (rows < batch.size)
+      for (String[] column : batch.strings)
+        if (column != null) Arrays.fill(column, rows, batch.size, null);
+    batch.size = rows;
+    return rows;
+  }
+
+  /**
+   * Parses n records which lie back to back from b[p] on into the batch from row on.
+   * The records are read column by column: since every field sits at a fixed offset,
+   * each column is one loop which parses a single type.
+   * @param terminated    Whether to check that the records end with the terminator.
+   * @return The number of records parsed, which stops short of n at the first record
+   * which does not end with the terminator.
+   */
+  private int readRecords(FixedWidthLayout layout, byte[] b, ByteBuffer view, int p, int n, RowBatch batch, int row, boolean terminated) {
+    int length = layout.recordLength;
+    byte[] types = layout.types;
+
+    if (terminated) n = countTerminated(layout, b, p, n);
+
+    for (int col = 0; col < types.length; col++) {
+      int from = p + layout.offsets[col], width = layout.widths[col];
+      switch (types[col]) {
+        case RowBatch.INT:
+          int[] ints = batch.ints[col];
+          for (int k = 0; k < n; k++, from += length) ints[row + k] = (int) parseFixedLong(b, view, from, from + width);
+          break;
+        case RowBatch.LONG:
+          long[] longs = batch.longs[col];
+          for (int k = 0; k < n; k++, from += length) longs[row + k] = parseFixedLong(b, view, from, from + width);
+          break;
+        case RowBatch.DOUBLE:
+          double[] doubles = batch.doubles[col];
+          for (int k = 0; k < n; k++, from += length) {
+            int i = from, to = from + width;
+            while(i < to && b[i] == ' ') i++;
+            while(to > i && b[to - 1] == ' ') to--;
+            doubles[row + k] = DecimalToDouble.parseDouble(b, view, i, to);
+          }
+          break;
+        default:
+          String[] strings = batch.strings[col];
+          StringCache cache = stringCache;
+          for (int k = 0; k < n; k++, from += length) {
+            int to = from + width;
+            while(to > from && b[to - 1] == ' ') to--;
+            strings[row + k] = cache != null ? cache.intern(b, view, from, to) : Utf8.decode(b, view, from, to);
+          }
+      }
+    }
+    return n;
+  }
+
+  // Counts the records from b[p] on which end with the terminator, stopping at the first which does not
+  private static int countTerminated(FixedWidthLayout layout, byte[] b, int p, int n) {
+    byte[] terminator = layout.terminator;
+    for (int k = 0, j = p + layout.fieldsLength; k < n; k++, j += layout.recordLength)
+      for (int i = 0; i < terminator.length; i++)
+        if (b[j + i] != terminator[i]) return k;
+    return n;
+  }
+
+  // Parses the integer in b[from, to), which may be padded with spaces on either side
+  private static long parseFixedLong(byte[] b, ByteBuffer view, int from, int to) {
+    while(from < to && b[from] == ' ') from++;
+    while(to > from && b[to - 1] == ' ') to--;
+    return ByteSlice.parseLong(b, view, from, to);
+  }
+
+  /**
+   * Copies the next length bytes, which run past the end of the buffer, to the start of
+   * the scratch buffer, refilling the buffer as needed.
+   * @return The number of bytes copied, which is less than length only at the end of
+   * the stream.
+   */
+  private int spillRecord(int length) throws IOException {
+    if (tokenBuffer.length < length) {
+      tokenBuffer = new byte[Math.max(tokenBuffer.length << 1, length)];
+      tokenView = ByteBuffer.wrap(tokenBuffer).order(ByteOrder.LITTLE_ENDIAN);
+      if (stats != null) stats.add(InputReaderStats.SCRATCH_BUFFER_GROWTHS, 1);
+      Jfr.longToken(false, length, tokenBuffer.length);
+    }
+    int n = 0;
+    while (n < length) {
+      if (bufIndex >= numBytesRead) {
+        if (numBytesRead == EOF) break;
+        numBytesRead = fill();
+        bufIndex = 0;
+        if (numBytesRead == EOF) break;
+      }
+      int k = Math.min(length - n, numBytesRead - bufIndex);
+      System.arraycopy(buf, bufIndex, tokenBuffer, n, k);
+      bufIndex += k;
+      n += k;
+    }
+    return n;
+  }
+
+
   // Read an array of n byte values
   public byte[] nextByteArray(int n) throws IOException {
     byte[] ar = new byte[n];
@@ -356,14 +1622,14 @@ public class InputReader {
   // Read an integer array of size n
   public int[] nextIntArray(int n) throws IOException {
     int[] ar = new int[n];
-    for (int i = 0; i < n; i++) ar[i] = nextInt();
+    if (readInts(ar, 0, n) < n) throw new IOException();
     return ar;
   }
 
   // Read a long array of size n
   public long[] nextLongArray(int n) throws IOException {
     long[] ar = new long[n];
-    for (int i = 0; i < n; i++) ar[i] = nextLong();
+    if (readLongs(ar, 0, n) < n) throw new IOException();
     return ar;
   }
 
@@ -402,14 +1668,14 @@ public class InputReader {
   // Read a 1-based integer array of size n+1
   public int[] nextIntArray1(int n) throws IOException {
     int[] ar = new int[n+1];
-    for (int i = 1; i <= n; i++) ar[i] = nextInt();
+    if (readInts(ar, 1, n) < n) throw new IOException();
     return ar;
   }
 
   // Read a 1-based long array of size n+1
   public long[] nextLongArray1(int n) throws IOException {
     long[] ar = new long[n+1];
-    for (int i = 1; i <= n; i++) ar[i] = nextLong();
+    if (readLongs(ar, 1, n) < n) throw new IOException();
     return ar;
   }
 
@@ -447,8 +1713,7 @@ public class InputReader {
   public int[][] nextIntMatrix(int rows, int cols) throws IOException {
     int[][] matrix = new int[rows][cols];
     for(int i = 0; i < rows; i++)
-      for (int j = 0; j < cols; j++)
-        matrix[i][j] = nextInt();
+      if (readInts(matrix[i], 0, cols) < cols) throw new IOException();
     return matrix;
   }
 
@@ -456,8 +1721,7 @@ public class InputReader {
   public long[][] nextLongMatrix(int rows, int cols) throws IOException {
     long[][] matrix = new long[rows][cols];
     for(int i = 0; i < rows; i++)
-      for (int j = 0; j < cols; j++)
-        matrix[i][j] = nextLong();
+      if (readLongs(matrix[i], 0, cols) < cols) throw new IOException();
     return matrix;
   }
 
@@ -501,8 +1765,7 @@ public class InputReader {
   public int[][] nextIntMatrix1(int rows, int cols) throws IOException {
     int[][] matrix = new int[rows+1][cols+1];
     for(int i = 1; i <= rows; i++)
-      for (int j = 1; j <= cols; j++)
-        matrix[i][j] = nextInt();
+      if (readInts(matrix[i], 1, cols) < cols) throw new IOException();
     return matrix;
   }
 
@@ -510,8 +1773,7 @@ public class InputReader {
   public long[][] nextLongMatrix1(int rows, int cols) throws IOException {
     long[][] matrix = new long[rows+1][cols+1];
     for(int i = 1; i <= rows; i++)
-      for (int j = 1; j <= cols; j++)
-        matrix[i][j] = nextLong();
+      if (readLongs(matrix[i], 1, cols) < cols) throw new IOException();
     return matrix;
   }
 
@@ -542,7 +1804,73 @@ public class InputReader {
     return matrix;    
   }
 
-  // Closes the input stream
+  /**
+   * Returns the remaining integers of the input stream as an IntStream. The values are
+   * parsed lazily straight out of the buffer without boxing. If this reader was created
+   * from a {@link java.nio.file.Path} the stream splits the unread part of the file at
+   * token boundaries, so calling .parallel() spreads the parsing over several cores.
+   * Any IOException is rethrown as an {@link java.io.UncheckedIOException}.
+   */
+  public IntStream ints() {
+    return StreamSupport.intStream(new TokenSpliterator.Ints(this), false);
+  }
+
+  // Returns the remaining longs of the input stream as a LongStream, see ints()
+  public LongStream longs() {
+    return StreamSupport.longStream(new TokenSpliterator.Longs(this), false);
+  }
+
+  // Returns the remaining doubles of the input stream as a DoubleStream, see ints()
+  public DoubleStream doubles() {
+    return StreamSupport.doubleStream(new TokenSpliterator.Doubles(this), false);
+  }
+
+  /**
+   * Splits the unread part of a memory mapped file in two at a token boundary. The
+   * returned reader takes over the buffered bytes and the first half of the file while
+   * this reader skips ahead to the second half, as ordered spliterators require.
+   * CSV input is never split in place, since a cut at a delimiter may land inside a
+   * quoted field or in the middle of a record.
+   * @return A reader over the first half or null if the source cannot be split.
+   */
+  InputReader trySplit() throws IOException {
+    if (csvClasses != null || !(stream instanceof MappedFileInputStream)) return null;
+    MappedFileInputStream first = ((MappedFileInputStream) stream).trySplit();
+    if (first == null) return null;
+    InputReader prefix = new InputReader(first, buf.length, position());
+    if (bufIndex < numBytesRead) {
+      prefix.numBytesRead = numBytesRead - bufIndex;
+      System.arraycopy(buf, bufIndex, prefix.buf, 0, prefix.numBytesRead);
+    }
+    bufIndex = numBytesRead = 0;
+    bufferStart = ((MappedFileInputStream) stream).position();
+    return prefix;
+  }
+
+  // An estimate of the number of bytes left to read, or Long.MAX_VALUE if unknown
+  long remainingBytes() {
+    if (!(stream instanceof MappedFileInputStream)) return Long.MAX_VALUE;
+    return ((MappedFileInputStream) stream).remaining() + Math.max(0, numBytesRead - bufIndex);
+  }
+
+  /**
+   * Returns the offset in the stream of the next byte this reader will look at, which
+   * is the number of bytes consumed so far. After nextInt(), nextString() and the other
+   * next methods the token's delimiter has been consumed too, so a position saved
+   * between two calls is a safe checkpoint: {@link #resume(Path, long) resume(file, position)}
+   * carries on with the next token. In CSV mode, save it where {@link #endOfRecord()
+   * endOfRecord()} is true. When gzip or deflate is enabled the position counts
+   * decompressed bytes and cannot be resumed from.
+   */
+  public long position() {
+    return numBytesRead == EOF ? bufferStart : bufferStart + bufIndex;
+  }
+
+  /**
+   * Closes the input stream, which also stops a read ahead thread started by
+   * enablePrefetch and releases the Inflater of enableGzip or enableDeflate.
+   */
+  @Override
   public void close() throws IOException {
     stream.close();
   }
@@ -0,0 +1,244 @@
+/**
+ * Counters describing what an InputReader has been doing: how much it read from its
+ * stream, how often and how long it waited for the stream, and how many values of
+ * each type it parsed. Comparing the time blocked in reads against the elapsed time
+ * tells whether a pipeline is bound by I/O or by parsing.
+ *
+ * Attach the counters with {@link InputReader#enableStats(InputReaderStats)}. A reader
+ * without stats does not count anything, so there is nothing to pay when they are off.
+ * The counters are written only by the thread using the reader, with ordered stores
+ * which cost no more than plain ones, so {@link #snapshot()} and JMX clients on other
+ * threads always see a whole, recent value of each counter. Calling {@link #reset()}
+ * while the reader is running may lose the counts it makes at that moment.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class InputReaderStats implements InputReaderStatsMXBean {
+
+  // The index of each counter in the counters array
+  static final int BYTES_READ = 0, REFILLS = 1, SHORT_READS = 2, READ_TIME_NANOS = 3,
+                   SCRATCH_BUFFER_GROWTHS = 4, BUFFER_RESIZES = 5, INTS = 6, LONGS = 7,
+                   DOUBLES = 8, FLOATS = 9, STRINGS = 10, LINES = 11, TOKENS = 12;
+
+  private static final int COUNTERS = 13;
+
+  private final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+
+  private volatile long startNanos;
+  private ObjectName objectName;
+
+  /**
+   * Create a set of counters, all zero.
+   */
+  public InputReaderStats() {
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Adds n to a counter. Only the reader's thread writes the counters, so a read
+   * followed by an ordered store publishes the sum without a locked instruction.
+   */
+  void add(int counter, long n) {
+    counters.lazySet(counter, counters.get(counter) + n);
+  }
+
+  /**
+   * Times one refill of buf from the stream and counts the bytes it returned.
+   * @return The result of stream.read(buf).
+   */
+  int read(InputStream stream, byte[] buf) throws IOException {
+    long start = System.nanoTime();
+    int n = stream.read(buf);
+    add(READ_TIME_NANOS, System.nanoTime() - start);
+    add(REFILLS, 1);
+    if (n > 0) add(BYTES_READ, n);
+    if (n >= 0 && n < buf.length) add(SHORT_READS, 1);
+    return n;
+  }
+
+  /**
+   * Copies the counters as they are now into an immutable snapshot, so two snapshots
+   * can be compared to measure an interval. Each counter is read whole, but they are
+   * read one after another while the reader may still be counting.
+   */
+  public Snapshot snapshot() {
+    long[] values = new long[COUNTERS];
+    for (int i = 0; i < COUNTERS; i++) values[i] = counters.get(i);
+    return new Snapshot(values, getElapsedNanos());
+  }
+
+  /**
+   * Publishes the counters over JMX in the platform MBeanServer under the name
+   * com.williamfiset.fastjavaio:type=InputReader,name=(name).
+   * @throws IllegalStateException if the counters are already registered or the name is taken.
+   */
+  public synchronized void registerMBean(String name) {
+    if (objectName != null) throw new IllegalStateException("Already registered as " + objectName);
+    try {
+      ObjectName objectName = new ObjectName("com.williamfiset.fastjavaio:type=InputReader,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      this.objectName = objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // Removes the counters from the platform MBeanServer if they were registered
+  public synchronized void unregisterMBean() {
+    if (objectName == null) return;
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.unregisterMBean(objectName);
+    } catch (JMException e) {
+      // Already removed by someone else
+    }
+    objectName = null;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return counters.get(BYTES_READ);
+  }
+
+  @Override
+  public long getRefills() {
+    return counters.get(REFILLS);
+  }
+
+  @Override
+  public long getShortReads() {
+    return counters.get(SHORT_READS);
+  }
+
+  @Override
+  public long getReadTimeNanos() {
+    return counters.get(READ_TIME_NANOS);
+  }
+
+  @Override
+  public long getElapsedNanos() {
+    return System.nanoTime() - startNanos;
+  }
+
+  @Override
+  public double getReadTimeFraction() {
+    return readTimeFraction(getReadTimeNanos(), getElapsedNanos());
+  }
+
+  @Override
+  public long getScratchBufferGrowths() {
+    return counters.get(SCRATCH_BUFFER_GROWTHS);
+  }
+
+  @Override
+  public long getBufferResizes() {
+    return counters.get(BUFFER_RESIZES);
+  }
+
+  @Override
+  public long getInts() {
+    return counters.get(INTS);
+  }
+
+  @Override
+  public long getLongs() {
+    return counters.get(LONGS);
+  }
+
+  @Override
+  public long getDoubles() {
+    return counters.get(DOUBLES);
+  }
+
+  @Override
+  public long getFloats() {
+    return counters.get(FLOATS);
+  }
+
+  @Override
+  public long getStrings() {
+    return counters.get(STRINGS);
+  }
+
+  @Override
+  public long getLines() {
+    return counters.get(LINES);
+  }
+
+  @Override
+  public long getTokens() {
+    return counters.get(TOKENS);
+  }
+
+  @Override
+  public void reset() {
+    for (int i = 0; i < COUNTERS; i++) counters.set(i, 0);
+    startNanos = System.nanoTime();
+  }
+
+  private static double readTimeFraction(long readTimeNanos, long elapsedNanos) {
+    return elapsedNanos == 0 ? 0 : Math.min(1.0, (double) readTimeNanos / elapsedNanos);
+  }
+
+  private static String toString(String type, long[] values, long elapsedNanos) {
+    return type + "[bytesRead=" + values[BYTES_READ] + ", refills=" + values[REFILLS] + ", shortReads=" + values[SHORT_READS] +
+      ", readTimeNanos=" + values[READ_TIME_NANOS] + ", elapsedNanos=" + elapsedNanos +
+      ", scratchBufferGrowths=" + values[SCRATCH_BUFFER_GROWTHS] + ", bufferResizes=" + values[BUFFER_RESIZES] +
+      ", ints=" + values[INTS] + ", longs=" + values[LONGS] + ", doubles=" + values[DOUBLES] + ", floats=" + values[FLOATS] +
+      ", strings=" + values[STRINGS] + ", lines=" + values[LINES] + ", tokens=" + values[TOKENS] + "]";
+  }
+
+  @Override
+  public String toString() {
+    Snapshot snapshot = snapshot();
+    return toString("InputReaderStats", snapshot.values, snapshot.elapsedNanos);
+  }
+
+  /**
+   * The counters of an InputReaderStats at one moment, which never change.
+   */
+  public static final class Snapshot {
+
+    private final long[] values;
+    private final long elapsedNanos;
+
+    private Snapshot(long[] values, long elapsedNanos) {
+      this.values = values;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    // See the matching methods of InputReaderStatsMXBean
+    public long getBytesRead() { return values[BYTES_READ]; }
+    public long getRefills() { return values[REFILLS]; }
+    public long getShortReads() { return values[SHORT_READS]; }
+    public long getReadTimeNanos() { return values[READ_TIME_NANOS]; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public double getReadTimeFraction() { return readTimeFraction(values[READ_TIME_NANOS], elapsedNanos); }
+    public long getScratchBufferGrowths() { return values[SCRATCH_BUFFER_GROWTHS]; }
+    public long getBufferResizes() { return values[BUFFER_RESIZES]; }
+    public long getInts() { return values[INTS]; }
+    public long getLongs() { return values[LONGS]; }
+    public long getDoubles() { return values[DOUBLES]; }
+    public long getFloats() { return values[FLOATS]; }
+    public long getStrings() { return values[STRINGS]; }
+    public long getLines() { return values[LINES]; }
+    public long getTokens() { return values[TOKENS]; }
+
+    @Override
+    public String toString() {
+      return InputReaderStats.toString("Snapshot", values, elapsedNanos);
+    }
+
+  }
+
+}
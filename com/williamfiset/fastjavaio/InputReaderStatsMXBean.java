@@ -0,0 +1,49 @@
+/**
+ * The management interface of {@link InputReaderStats}, under which the counters of
+ * an InputReader are published over JMX.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+public interface InputReaderStatsMXBean {
+
+  // The number of bytes read from the underlying stream
+  long getBytesRead();
+
+  // The number of reads issued to the underlying stream to refill the buffer
+  long getRefills();
+
+  // The number of refills which returned fewer bytes than the buffer holds
+  long getShortReads();
+
+  // The total time spent blocked in reads of the underlying stream
+  long getReadTimeNanos();
+
+  // The time since the counters were created or last reset
+  long getElapsedNanos();
+
+  // The fraction of the elapsed time spent blocked in reads, near 1 when I/O bound
+  double getReadTimeFraction();
+
+  // The number of times the scratch buffer for tokens and lines which cross a refill grew
+  long getScratchBufferGrowths();
+
+  // The number of times adaptive buffering grew or shrank the buffer
+  long getBufferResizes();
+
+  // The number of ints (including bytes), longs, doubles and floats parsed
+  long getInts();
+  long getLongs();
+  long getDoubles();
+  long getFloats();
+
+  // The number of Strings, lines and ByteSlice tokens read
+  long getStrings();
+  long getLines();
+  long getTokens();
+
+  // Sets every counter back to zero and restarts the elapsed time
+  void reset();
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Emits Java Flight Recorder events for buffer refills, tokens which grow the scratch
+ * buffer and doubles which fall back to the JDK's parser. Until Flight Recorder is
+ * started each check is a static flag and one static call, so readers pay next to
+ * nothing when no recording is taking place. On JVMs without Flight Recorder, such as
+ * Java 8 builds which lack it, nothing is ever emitted.
+ *
+ * Each kind of event is limited to {@link #MAX_EVENTS_PER_SECOND} so that a recording
+ * of a fast reader stays small; every event carries the number of events skipped
+ * before it, so totals can still be reconstructed.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.InputStream;
+import java.io.IOException;
+
+final class Jfr {
+
+  static final int MAX_EVENTS_PER_SECOND = 1000;
+
+  /**
+   * What the InputReader needs from Flight Recorder, implemented by JfrEvents. This
+   * class never refers to jdk.jfr or to JfrEvents by name, so the core of the library
+   * compiles for and runs on Java 8; JfrEvents is compiled separately for Java 11.
+   */
+  interface Recorder {
+
+    // Whether Flight Recorder has been started, so a recording may be running
+    boolean initialized();
+
+    boolean refillEnabled();
+    int refill(InputStream stream, byte[] buf, InputReaderStats stats) throws IOException;
+
+    boolean longTokenEnabled();
+    void longToken(boolean line, int length, int capacity);
+
+    boolean slowNumberEnabled();
+    void slowNumber(String token, boolean isFloat);
+
+  }
+
+  // The recorder, or null when Flight Recorder or JfrEvents is missing from this JVM
+  private static final Recorder RECORDER = load();
+
+  private Jfr() {}
+
+  private static Recorder load() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder");
+      return (Recorder) Class.forName("com.williamfiset.fastjavaio.JfrEvents").getDeclaredConstructor().newInstance();
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  // Whether a recording may be running. Registering the events is expensive, so the
+  // event types are only registered once Flight Recorder has been started.
+  private static boolean initialized() {
+    return RECORDER != null && RECORDER.initialized();
+  }
+
+  // Whether refills should go through refill() to be recorded
+  static boolean refillEnabled() {
+    return initialized() && RECORDER.refillEnabled();
+  }
+
+  // Reads the stream into buf like InputReader does, timing the read for the recording
+  static int refill(InputStream stream, byte[] buf, InputReaderStats stats) throws IOException {
+    return RECORDER.refill(stream, buf, stats);
+  }
+
+  // Records that a token, line or fixed-width record crossing a refill grew the scratch buffer to capacity
+  static void longToken(boolean line, int length, int capacity) {
+    if (initialized() && RECORDER.longTokenEnabled()) RECORDER.longToken(line, length, capacity);
+  }
+
+  // Records a double or float which had to be parsed by the JDK
+  static void slowNumber(String token, boolean isFloat) {
+    if (initialized() && RECORDER.slowNumberEnabled()) RECORDER.slowNumber(token, isFloat);
+  }
+
+  /**
+   * Lets through at most MAX_EVENTS_PER_SECOND events in each one second window.
+   */
+  static final class RateLimit {
+
+    private long windowStart;
+    private int count;
+    private long skipped;
+
+    /**
+     * @return The number of events skipped since the last one let through, or -1 if
+     * this event must be skipped.
+     */
+    synchronized long tryAcquire() {
+      long now = System.nanoTime();
+      if (now - windowStart >= 1_000_000_000L) {
+        windowStart = now;
+        count = 0;
+      }
+      if (count == MAX_EVENTS_PER_SECOND) {
+        skipped++;
+        return -1;
+      }
+      count++;
+      long s = skipped;
+      skipped = 0;
+      return s;
+    }
+
+  }
+
+}
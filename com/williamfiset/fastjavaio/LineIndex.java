@@ -0,0 +1,337 @@
+/**
+ * An index of where every line of a file starts, kept in a sidecar file next to it,
+ * which lets an InputReader start at any line of a huge file without reading the lines
+ * before it. The index is built with one pass over the file which scans for new lines
+ * eight bytes at a time.
+ *
+ * Lines are grouped in blocks of {@link #LINES_PER_BLOCK}. Each block stores the file
+ * offset of its first line, and every other line of the block is stored as its
+ * distance from that offset in the fewest bytes which fit the block, usually one or
+ * two bytes per line. Finding a line reads one block entry and one distance, so it
+ * takes constant time. The index is memory mapped rather than loaded onto the heap,
+ * one window of 1GB at a time, so like the file it has no 2GB limit. Building it
+ * keeps nothing per line on the heap either: the block table goes to a temporary
+ * file until the distances are all written.
+ *
+ * <pre>{@code
+ * LineIndex index = LineIndex.open(file); // or LineIndex.build(file) the first time
+ * try (InputReader in = index.reader(50_000_000, 50_000_100)) {
+ *   String line;
+ *   while ((line = in.nextLine()) != null) System.out.println(line);
+ * }
+ * }</pre>
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public final class LineIndex implements Closeable {
+
+  /**
+   * The suffix added to the name of a file to name its index.
+   */
+  public static final String SUFFIX = ".idx";
+
+  /**
+   * The number of lines which share one absolute offset in the index.
+   */
+  public static final int LINES_PER_BLOCK = 64;
+
+  // The first bytes of every index file, "FJIOLIDX" read as a little endian long
+  private static final long MAGIC = 0x5844494c4f494a46L;
+
+  private static final int VERSION = 1;
+
+  // Magic, version, lines per block, line count, file size, last modified and data size
+  private static final int HEADER_SIZE = 48;
+
+  // Each block has two longs in the block table: the offset of its first line and the
+  // position of its distances in the data region times 8 plus their width minus one
+  private static final int BLOCK_ENTRY_SIZE = 16;
+
+  // The size of the reads used to scan the file
+  private static final int SCAN_SIZE = 1 << 20;
+
+  // The index is mapped in windows of 2^WINDOW_BITS bytes, a multiple of BLOCK_ENTRY_SIZE
+  // so no block entry straddles two windows
+  private static final int WINDOW_BITS = 30;
+  private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+
+  private final Path file;
+  private final long lines, fileSize;
+
+  // The mapped windows of the block table and of the distances, null once the index is closed
+  private ByteBuffer[] blocks, data;
+
+  private LineIndex(Path file, long lines, long fileSize, ByteBuffer[] blocks, ByteBuffer[] data) {
+    this.file = file;
+    this.lines = lines;
+    this.fileSize = fileSize;
+    this.blocks = blocks;
+    this.data = data;
+  }
+
+  /**
+   * Builds the index of a file, writes it to the file's name plus {@link #SUFFIX} and
+   * opens it.
+   */
+  public static LineIndex build(Path file) throws IOException {
+    return build(file, indexPath(file));
+  }
+
+  /**
+   * Builds the index of a file and writes it to the given path, replacing any index
+   * already there, then opens it.
+   * @throws IOException if the file cannot be read or the index cannot be written.
+   */
+  public static LineIndex build(Path file, Path index) throws IOException {
+    if (file == null || index == null) throw new IllegalArgumentException();
+    Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+    Path tmpTable = index.resolveSibling(index.getFileName() + ".blocks.tmp");
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING);
+         FileChannel table = FileChannel.open(tmpTable, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                              StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING,
+                                              StandardOpenOption.DELETE_ON_CLOSE)) {
+      long lastModified = Files.getLastModifiedTime(file).toMillis();
+      Builder builder = new Builder(out, table);
+      long size = builder.scan(in);
+      builder.finish(size, lastModified);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return open(file, index);
+  }
+
+  /**
+   * Opens the index of a file stored under the file's name plus {@link #SUFFIX}.
+   */
+  public static LineIndex open(Path file) throws IOException {
+    return open(file, indexPath(file));
+  }
+
+  /**
+   * Opens an index built for the given file.
+   * @throws IOException if the index cannot be read, is not an index or is stale,
+   * meaning the file's size or modification time changed since it was built.
+   */
+  public static LineIndex open(Path file, Path index) throws IOException {
+    if (file == null || index == null) throw new IllegalArgumentException();
+    try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) >= 0);
+      if (header.hasRemaining() || header.getLong(0) != MAGIC)
+        throw new IOException("Not a line index: " + index);
+      if (header.getInt(8) != VERSION || header.getInt(12) != LINES_PER_BLOCK)
+        throw new IOException("Unsupported line index version: " + index);
+      long lines = header.getLong(16), fileSize = header.getLong(24);
+      long lastModified = header.getLong(32), dataSize = header.getLong(40);
+      if (Files.size(file) != fileSize || Files.getLastModifiedTime(file).toMillis() != lastModified)
+        throw new IOException("Stale line index, " + file + " changed since it was built");
+
+      long blockCount = (lines + LINES_PER_BLOCK - 1) / LINES_PER_BLOCK, tableSize = blockCount * BLOCK_ENTRY_SIZE;
+      if (channel.size() != HEADER_SIZE + dataSize + tableSize)
+        throw new IOException("Truncated line index: " + index);
+      ByteBuffer[] data = map(channel, HEADER_SIZE, dataSize);
+      ByteBuffer[] blocks = map(channel, HEADER_SIZE + dataSize, tableSize);
+      return new LineIndex(file, lines, fileSize, blocks, data);
+    }
+  }
+
+  // Maps size bytes of the index from position on, one window after another
+  private static ByteBuffer[] map(FileChannel channel, long position, long size) throws IOException {
+    ByteBuffer[] windows = new ByteBuffer[(int) ((size + WINDOW_MASK) >>> WINDOW_BITS)];
+    for (int i = 0; i < windows.length; i++) {
+      long start = (long) i << WINDOW_BITS;
+      windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + start, Math.min(size - start, 1L << WINDOW_BITS))
+                          .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    return windows;
+  }
+
+  // The default path of the index of a file
+  private static Path indexPath(Path file) {
+    if (file == null) throw new IllegalArgumentException();
+    return file.resolveSibling(file.getFileName() + SUFFIX);
+  }
+
+  // The number of lines in the file. A new line at the very end does not start another line.
+  public long lines() {
+    return lines;
+  }
+
+  /**
+   * Returns the file offset at which a line starts, or the size of the file for
+   * line == lines().
+   * @param line    The line number, counting from zero.
+   */
+  public long offset(long line) {
+    if (line < 0 || line > lines) throw new IndexOutOfBoundsException("Line " + line + " of " + lines);
+    if (line == lines) return fileSize;
+    ByteBuffer[] data = this.data;
+    long entry = line / LINES_PER_BLOCK * BLOCK_ENTRY_SIZE;
+    ByteBuffer blocks = blocks()[(int) (entry >>> WINDOW_BITS)];
+    int at = (int) (entry & WINDOW_MASK), i = (int) (line % LINES_PER_BLOCK);
+    long base = blocks.getLong(at);
+    if (i == 0) return base;
+    long packed = blocks.getLong(at + 8);
+    int width = (int) (packed & 7) + 1;
+    long pos = (packed >>> 3) + (long) (i - 1) * width, distance = 0;
+    for (long p = pos + width - 1; p >= pos; p--)
+      distance = distance << 8 | (data[(int) (p >>> WINDOW_BITS)].get((int) (p & WINDOW_MASK)) & 0xff);
+    return base + distance;
+  }
+
+  /**
+   * Opens an InputReader over the file which starts at the given line and reads to the
+   * end of the file. Its {@link InputReader#position() position()} is an offset in the
+   * file. Closing the reader closes its own view of the file, not the index.
+   */
+  public InputReader reader(long line) throws IOException {
+    return reader(line, lines);
+  }
+
+  /**
+   * Opens an InputReader over the lines [fromLine, toLine) of the file, so nextLine()
+   * returns null after line toLine - 1.
+   */
+  public InputReader reader(long fromLine, long toLine) throws IOException {
+    if (fromLine > toLine) throw new IllegalArgumentException("fromLine > toLine");
+    long from = offset(fromLine), to = offset(toLine);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    return new InputReader(new MappedFileInputStream(channel, from, to, MappedFileInputStream.WINDOW_SIZE), InputReader.DEFAULT_BUFFER_SIZE, from);
+  }
+
+  private ByteBuffer[] blocks() {
+    if (blocks == null) throw new IllegalStateException("The index is closed");
+    return blocks;
+  }
+
+  // Drops the index, whose mappings are released once they are garbage collected
+  @Override
+  public void close() {
+    blocks = null;
+    data = null;
+  }
+
+  @Override
+  public String toString() {
+    return "LineIndex[file=" + file + ", lines=" + lines + ", size=" + fileSize + "]";
+  }
+
+  /**
+   * Writes an index while the file is scanned: the distances of each block go straight
+   * to the data region and the block table to a temporary file until the end, where it
+   * is copied after the data, followed by the header at the start of the file.
+   */
+  private static final class Builder {
+
+    private final FileChannel out, table;
+    private final ByteBuffer staging = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer tableStaging = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    // The offsets of the lines of the current block
+    private final long[] block = new long[LINES_PER_BLOCK];
+    private int blockLines;
+
+    private long lines, dataSize;
+
+    Builder(FileChannel out, FileChannel table) throws IOException {
+      this.out = out;
+      this.table = table;
+      out.position(HEADER_SIZE);
+    }
+
+    /**
+     * Scans the file for new lines, adding a line after every new line which is not
+     * the last byte of the file.
+     * @return The number of bytes scanned.
+     */
+    long scan(FileChannel in) throws IOException {
+      long size = in.size();
+      if (size > 0) addLine(0);
+      ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      byte[] bytes = buffer.array();
+      long position = 0;
+      while (position < size) {
+        buffer.clear();
+        buffer.limit((int) Math.min(SCAN_SIZE, size - position));
+        int n = in.read(buffer, position);
+        if (n < 0) break;
+        int i = 0;
+        while (i + 8 <= n) {
+          if (Swar.matchMask(buffer.getLong(i), (byte) '\n') != 0) {
+            for (int j = i; j < i + 8; j++)
+              if (bytes[j] == '\n' && position + j + 1 < size) addLine(position + j + 1);
+          }
+          i += 8;
+        }
+        for (; i < n; i++)
+          if (bytes[i] == '\n' && position + i + 1 < size) addLine(position + i + 1);
+        position += n;
+      }
+      return position;
+    }
+
+    private void addLine(long offset) throws IOException {
+      block[blockLines++] = offset;
+      lines++;
+      if (blockLines == LINES_PER_BLOCK) flushBlock();
+    }
+
+    // Stores the block's first offset in the table and the distances of the others in the data
+    private void flushBlock() throws IOException {
+      long base = block[0];
+      int width = Math.max(1, (71 - Long.numberOfLeadingZeros(block[blockLines - 1] - base)) >>> 3);
+      if (tableStaging.remaining() < BLOCK_ENTRY_SIZE) flush(tableStaging, table);
+      tableStaging.putLong(base).putLong(dataSize << 3 | (width - 1));
+      for (int i = 1; i < blockLines; i++) {
+        long distance = block[i] - base;
+        for (int j = 0; j < width; j++, distance >>>= 8) put((byte) distance);
+      }
+      dataSize += (long) (blockLines - 1) * width;
+      blockLines = 0;
+    }
+
+    private void put(byte b) throws IOException {
+      if (!staging.hasRemaining()) flush(staging, out);
+      staging.put(b);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) channel.write(buffer);
+      buffer.clear();
+    }
+
+    void finish(long fileSize, long lastModified) throws IOException {
+      if (blockLines > 0) flushBlock();
+      flush(staging, out);
+      flush(tableStaging, table);
+      for (long position = 0, size = table.size(); position < size;)
+        position += table.transferTo(position, size - position, out);
+      staging.putLong(MAGIC).putInt(VERSION).putInt(LINES_PER_BLOCK)
+             .putLong(lines).putLong(fileSize).putLong(lastModified).putLong(dataSize);
+      staging.flip();
+      long position = 0;
+      while (staging.hasRemaining()) position += out.write(staging, position);
+      staging.clear();
+      out.force(true);
+    }
+
+  }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * An InputStream over a memory mapped region of a file. The file is mapped in
+ * windows of at most {@link #WINDOW_SIZE} bytes so that files larger than 2GB
+ * (the limit of a single {@link java.nio.MappedByteBuffer}) can be read. Reads
+ * copy straight out of the page cache without going through a read system call.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.InputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+final class MappedFileInputStream extends InputStream {
+
+  /**
+   * The largest region of the file which is mapped at any one time (1GB).
+   */
+  static final long WINDOW_SIZE = 1L << 30;
+
+  /**
+   * Regions smaller than 1MB are not worth splitting any further.
+   */
+  static final long MIN_SPLIT_SIZE = 1 << 20;
+
+  private final FileChannel channel;
+  private final long windowSize;
+
+  // Streams split off another stream share its channel and leave closing it to the original
+  private final boolean ownsChannel;
+
+  // The currently mapped window and the file offset it begins at
+  private MappedByteBuffer window;
+  private long windowStart, windowEnd;
+
+  // The file offset of the next byte to read and the offset to stop reading at
+  private long position, limit;
+
+  /**
+   * Create a stream over the bytes [position, limit) of a file channel.
+   * @param channel     The file channel to map.
+   * @param position    The file offset of the first byte to read.
+   * @param limit       The file offset one past the last byte to read.
+   * @param windowSize  The maximum number of bytes to map at once.
+   */
+  MappedFileInputStream(FileChannel channel, long position, long limit, long windowSize) {
+    this(channel, position, limit, windowSize, true);
+  }
+
+  private MappedFileInputStream(FileChannel channel, long position, long limit, long windowSize, boolean ownsChannel) {
+    if (channel == null || position < 0 || limit < position || windowSize <= 0 || windowSize > Integer.MAX_VALUE)
+      throw new IllegalArgumentException();
+    this.channel = channel;
+    this.position = position;
+    this.limit = limit;
+    this.windowSize = windowSize;
+    this.ownsChannel = ownsChannel;
+  }
+
+  MappedFileInputStream(FileChannel channel) throws IOException {
+    this(channel, 0, channel.size(), WINDOW_SIZE);
+  }
+
+  // Maps the window which starts at the current position
+  private void mapWindow() throws IOException {
+    windowStart = position;
+    windowEnd = Math.min(limit, position + windowSize);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position >= limit) return -1;
+    if (window == null || position >= windowEnd) mapWindow();
+    return window.get((int) (position++ - windowStart)) & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return 0;
+    if (position >= limit) return -1;
+    if (window == null || position >= windowEnd) mapWindow();
+    int n = (int) Math.min(len, Math.min(windowEnd, limit) - position);
+    window.position((int) (position - windowStart));
+    window.get(b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public long skip(long n) {
+    if (n <= 0) return 0;
+    long skipped = Math.min(n, limit - position);
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return (int) Math.min(Integer.MAX_VALUE, limit - position);
+  }
+
+  // The file offset of the next byte to read
+  long position() {
+    return position;
+  }
+
+  // The number of bytes left to read
+  long remaining() {
+    return limit - position;
+  }
+
+  /**
+   * Splits off the first half of the unread region, cutting it at a delimiter so no
+   * token is shared between the two streams. This stream skips ahead to the second half.
+   * @return A stream over the first half or null if the region is too small to split.
+   */
+  MappedFileInputStream trySplit() throws IOException {
+    if (limit - position < MIN_SPLIT_SIZE) return null;
+    long mid = findDelimiter(channel, position + (limit - position) / 2, limit);
+    if (mid >= limit) return null;
+    MappedFileInputStream prefix = new MappedFileInputStream(channel, position, mid, windowSize, false);
+    position = mid;
+    return prefix;
+  }
+
+  /**
+   * Finds the first delimiter (any byte value <= 32, like the InputReader)
+   * in the file at or after offset from, so that a file can be split into ranges which
+   * never cut a token in half.
+   * @return The offset of the delimiter or limit if there is none before it.
+   */
+  static long findDelimiter(FileChannel channel, long from, long limit) throws IOException {
+    ByteBuffer scan = ByteBuffer.allocate(4096);
+    while (from < limit) {
+      scan.clear();
+      scan.limit((int) Math.min(scan.capacity(), limit - from));
+      int n = channel.read(scan, from);
+      if (n <= 0) return limit;
+      for (int i = 0; i < n; i++)
+        if ((scan.get(i) & 0xff) <= ' ') return from + i;
+      from += n;
+    }
+    return limit;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    if (ownsChannel) channel.close();
+  }
+
+}
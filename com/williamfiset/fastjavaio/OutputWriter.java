@@ -0,0 +1,405 @@
+/**
+ * A very fast output writer to write data to any OutputStream (System.out in particular).
+ * This is the companion of the {@link InputReader}: values are formatted straight into a
+ * reusable byte buffer which is only handed to the stream once it fills up or is flushed.
+ * None of the print methods allocate memory per value. Remember to call {@link #flush()}
+ * or {@link #close()} once you are done writing, otherwise buffered output is lost! A
+ * try-with-resources statement does the closing for you.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.OutputStream;
+import java.io.IOException;
+
+public class OutputWriter implements Closeable, Flushable {
+
+  /**
+   * The default size of the OutputWriter's buffer is 2<sup>16</sup>.
+   */
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The default stream for the OutputWriter is standard output.
+   */
+  private static final OutputStream DEFAULT_STREAM = System.out;
+
+  // The longest number the writer formats, a double such as "-2.2250738585072014E-308"
+  private static final int MAX_NUMBER_LENGTH = DoubleToDecimal.MAX_CHARS;
+
+  // Variables associated with the byte buffer.
+  private byte[] buf;
+  private int bufIndex;
+
+  private OutputStream stream;
+
+  // New line character: '\n'
+  private static final byte NEW_LINE = 10;
+
+  // Space character: ' '
+  private static final byte SPACE = 32;
+
+  // Dash character: '-'
+  private static final byte DASH = 45;
+
+  // Lookup tables for the tens and ones digit of the numbers 0 to 99
+  private static final byte[] digitTens = new byte[100];
+  private static final byte[] digitOnes = new byte[100];
+
+  static {
+    for (int i = 0; i < 100; i++) {
+      digitTens[i] = (byte) ('0' + i / 10);
+      digitOnes[i] = (byte) ('0' + i % 10);
+    }
+  }
+
+  /**
+   * Create an OutputWriter that writes to standard output.
+   */
+  public OutputWriter() {
+    this(DEFAULT_STREAM, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Create an OutputWriter that writes to standard output.
+   * @param bufferSize    The buffer size for this output writer.
+   */
+  public OutputWriter(int bufferSize) {
+    this(DEFAULT_STREAM, bufferSize);
+  }
+
+  /**
+   * Create an OutputWriter that writes to a stream.
+   * @param stream  Takes an OutputStream as a parameter to write to.
+   */
+  public OutputWriter(OutputStream stream) {
+    this(stream, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Create an OutputWriter that writes to a stream.
+   * @param  stream        Takes an {@link java.io.OutputStream OutputStream} as a parameter to write to.
+   * @param  bufferSize    The size of the buffer to use. Buffers smaller than the longest
+   *                       formatted number are rounded up to fit it.
+   */
+  public OutputWriter(OutputStream stream, int bufferSize) {
+    if (stream == null || bufferSize <= 0)
+      throw new IllegalArgumentException();
+    buf = new byte[Math.max(bufferSize, MAX_NUMBER_LENGTH)];
+    this.stream = stream;
+  }
+
+  // Writes the buffer out to the stream if fewer than n bytes are free
+  private void ensureCapacity(int n) throws IOException {
+    if (bufIndex + n > buf.length) flushBuffer();
+  }
+
+  // Writes the contents of the buffer to the stream without flushing the stream
+  private void flushBuffer() throws IOException {
+    if (bufIndex > 0) {
+      stream.write(buf, 0, bufIndex);
+      bufIndex = 0;
+    }
+  }
+
+  /**
+   * Writes a single character, encoded as UTF-8 if it is not ASCII.
+   */
+  public void print(char c) throws IOException {
+    ensureCapacity(3);
+    if (c < 0x80) buf[bufIndex++] = (byte) c;
+    else writeChar(c);
+  }
+
+  /**
+   * Writes a 32 bit signed integer.
+   */
+  public void print(int value) throws IOException {
+    ensureCapacity(MAX_NUMBER_LENGTH);
+    if (value < 0) {
+      buf[bufIndex++] = DASH;
+      if (value == Integer.MIN_VALUE) {
+        // -MIN_VALUE overflows, so write the last digit separately
+        writeDigits(214748364, 9);
+        buf[bufIndex++] = '8';
+        return;
+      }
+      value = -value;
+    }
+    writeDigits(value, intLength(value));
+  }
+
+  /**
+   * Writes a 64 bit signed long.
+   */
+  public void print(long value) throws IOException {
+    ensureCapacity(MAX_NUMBER_LENGTH);
+    if (value < 0) {
+      buf[bufIndex++] = DASH;
+      if (value == Long.MIN_VALUE) {
+        // -MIN_VALUE overflows, so write the last digit separately
+        writeDigits(922337203685477580L, 18);
+        buf[bufIndex++] = '8';
+        return;
+      }
+      value = -value;
+    }
+    if (value <= Integer.MAX_VALUE) writeDigits((int) value, intLength((int) value));
+    else writeDigits(value, longLength(value));
+  }
+
+  /**
+   * Writes the shortest decimal representation of a double which reads back as the
+   * same double. The format is the same as {@link Double#toString(double)}.
+   */
+  public void print(double value) throws IOException {
+    ensureCapacity(MAX_NUMBER_LENGTH);
+    bufIndex = DoubleToDecimal.write(value, buf, bufIndex);
+  }
+
+  /**
+   * Writes a string, encoding any non ASCII characters as UTF-8.
+   */
+  public void print(String str) throws IOException {
+    if (str == null) str = "null";
+    int n = str.length();
+    for (int i = 0; i < n;) {
+      ensureCapacity(4);
+      // Leave room for a four byte UTF-8 sequence at the end of the buffer
+      int end = buf.length - 3;
+      while (i < n && bufIndex < end) {
+        char c = str.charAt(i++);
+        if (c < 0x80) buf[bufIndex++] = (byte) c;
+        else if (Character.isHighSurrogate(c) && i < n && Character.isLowSurrogate(str.charAt(i)))
+          writeCodePoint(Character.toCodePoint(c, str.charAt(i++)));
+        else writeChar(c);
+      }
+    }
+  }
+
+  /**
+   * Writes a new line character.
+   */
+  public void println() throws IOException {
+    ensureCapacity(1);
+    buf[bufIndex++] = NEW_LINE;
+  }
+
+  public void println(char c) throws IOException {
+    print(c); println();
+  }
+
+  public void println(int value) throws IOException {
+    print(value); println();
+  }
+
+  public void println(long value) throws IOException {
+    print(value); println();
+  }
+
+  public void println(double value) throws IOException {
+    print(value); println();
+  }
+
+  public void println(String str) throws IOException {
+    print(str); println();
+  }
+
+  // Writes a space if i is not the first index of a row
+  private void separate(int i, int first) throws IOException {
+    if (i != first) {
+      ensureCapacity(1);
+      buf[bufIndex++] = SPACE;
+    }
+  }
+
+  // Write an integer array as a single line of space separated values
+  public void printIntArray(int[] ar) throws IOException {
+    printIntArray(ar, 0);
+  }
+
+  // Write a long array as a single line of space separated values
+  public void printLongArray(long[] ar) throws IOException {
+    printLongArray(ar, 0);
+  }
+
+  // Write a double array as a single line of space separated values
+  public void printDoubleArray(double[] ar) throws IOException {
+    printDoubleArray(ar, 0);
+  }
+
+  // Write a string array as a single line of space separated values
+  public void printStringArray(String[] ar) throws IOException {
+    printStringArray(ar, 0);
+  }
+
+  // Write a 1-based integer array as a single line, skipping index 0
+  public void printIntArray1(int[] ar) throws IOException {
+    printIntArray(ar, 1);
+  }
+
+  // Write a 1-based long array as a single line, skipping index 0
+  public void printLongArray1(long[] ar) throws IOException {
+    printLongArray(ar, 1);
+  }
+
+  // Write a 1-based double array as a single line, skipping index 0
+  public void printDoubleArray1(double[] ar) throws IOException {
+    printDoubleArray(ar, 1);
+  }
+
+  // Write a 1-based string array as a single line, skipping index 0
+  public void printStringArray1(String[] ar) throws IOException {
+    printStringArray(ar, 1);
+  }
+
+  // Write a two dimensional matrix of ints with one row per line
+  public void printIntMatrix(int[][] matrix) throws IOException {
+    for (int i = 0; i < matrix.length; i++) printIntArray(matrix[i], 0);
+  }
+
+  // Write a two dimensional matrix of longs with one row per line
+  public void printLongMatrix(long[][] matrix) throws IOException {
+    for (int i = 0; i < matrix.length; i++) printLongArray(matrix[i], 0);
+  }
+
+  // Write a two dimensional matrix of doubles with one row per line
+  public void printDoubleMatrix(double[][] matrix) throws IOException {
+    for (int i = 0; i < matrix.length; i++) printDoubleArray(matrix[i], 0);
+  }
+
+  // Write a two dimensional matrix of Strings with one row per line
+  public void printStringMatrix(String[][] matrix) throws IOException {
+    for (int i = 0; i < matrix.length; i++) printStringArray(matrix[i], 0);
+  }
+
+  // Write a 1-based two dimensional matrix of ints, skipping row and column 0
+  public void printIntMatrix1(int[][] matrix) throws IOException {
+    for (int i = 1; i < matrix.length; i++) printIntArray(matrix[i], 1);
+  }
+
+  // Write a 1-based two dimensional matrix of longs, skipping row and column 0
+  public void printLongMatrix1(long[][] matrix) throws IOException {
+    for (int i = 1; i < matrix.length; i++) printLongArray(matrix[i], 1);
+  }
+
+  // Write a 1-based two dimensional matrix of doubles, skipping row and column 0
+  public void printDoubleMatrix1(double[][] matrix) throws IOException {
+    for (int i = 1; i < matrix.length; i++) printDoubleArray(matrix[i], 1);
+  }
+
+  // Write a 1-based two dimensional matrix of Strings, skipping row and column 0
+  public void printStringMatrix1(String[][] matrix) throws IOException {
+    for (int i = 1; i < matrix.length; i++) printStringArray(matrix[i], 1);
+  }
+
+  private void printIntArray(int[] ar, int first) throws IOException {
+    for (int i = first; i < ar.length; i++) { separate(i, first); print(ar[i]); }
+    println();
+  }
+
+  private void printLongArray(long[] ar, int first) throws IOException {
+    for (int i = first; i < ar.length; i++) { separate(i, first); print(ar[i]); }
+    println();
+  }
+
+  private void printDoubleArray(double[] ar, int first) throws IOException {
+    for (int i = first; i < ar.length; i++) { separate(i, first); print(ar[i]); }
+    println();
+  }
+
+  private void printStringArray(String[] ar, int first) throws IOException {
+    for (int i = first; i < ar.length; i++) { separate(i, first); print(ar[i]); }
+    println();
+  }
+
+  // Number of decimal digits in a non negative int
+  private static int intLength(int value) {
+    int len = 1;
+    for (int pow = 10; len < 10 && value >= pow; pow *= 10) len++;
+    return len;
+  }
+
+  // Number of decimal digits in a non negative long
+  private static int longLength(long value) {
+    int len = 1;
+    for (long pow = 10; len < 19 && value >= pow; pow *= 10) len++;
+    return len;
+  }
+
+  // Writes the len digits of a non negative int two digits at a time
+  private void writeDigits(int value, int len) {
+    int i = bufIndex + len;
+    while (value >= 100) {
+      int r = value % 100;
+      value /= 100;
+      buf[--i] = digitOnes[r];
+      buf[--i] = digitTens[r];
+    }
+    buf[--i] = digitOnes[value];
+    if (value >= 10) buf[--i] = digitTens[value];
+    bufIndex += len;
+  }
+
+  // Writes the len digits of a non negative long two digits at a time
+  private void writeDigits(long value, int len) {
+    int i = bufIndex + len;
+    while (value > Integer.MAX_VALUE) {
+      int r = (int) (value % 100);
+      value /= 100;
+      buf[--i] = digitOnes[r];
+      buf[--i] = digitTens[r];
+    }
+    int v = (int) value;
+    while (v >= 100) {
+      int r = v % 100;
+      v /= 100;
+      buf[--i] = digitOnes[r];
+      buf[--i] = digitTens[r];
+    }
+    buf[--i] = digitOnes[v];
+    if (v >= 10) buf[--i] = digitTens[v];
+    bufIndex += len;
+  }
+
+  // Writes a non ASCII char from the basic multilingual plane as UTF-8
+  private void writeChar(char c) {
+    if (c < 0x800) {
+      buf[bufIndex++] = (byte) (0xc0 | (c >> 6));
+      buf[bufIndex++] = (byte) (0x80 | (c & 0x3f));
+    } else if (Character.isSurrogate(c)) {
+      // Unpaired surrogates cannot be encoded
+      buf[bufIndex++] = '?';
+    } else {
+      buf[bufIndex++] = (byte) (0xe0 | (c >> 12));
+      buf[bufIndex++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+      buf[bufIndex++] = (byte) (0x80 | (c & 0x3f));
+    }
+  }
+
+  // Writes a supplementary code point as four bytes of UTF-8
+  private void writeCodePoint(int cp) {
+    buf[bufIndex++] = (byte) (0xf0 | (cp >> 18));
+    buf[bufIndex++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+    buf[bufIndex++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+    buf[bufIndex++] = (byte) (0x80 | (cp & 0x3f));
+  }
+
+  // Writes any buffered output and flushes the stream
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    stream.flush();
+  }
+
+  // Flushes and closes the output stream
+  @Override
+  public void close() throws IOException {
+    flush();
+    stream.close();
+  }
+
+}
@@ -0,0 +1,197 @@
+/**
+ * Reads every value of a large whitespace separated file using several cores. The
+ * file is split into byte ranges whose boundaries are moved forward to the next
+ * delimiter so no token is cut in half. Each range is parsed by its own InputReader
+ * over a memory mapped region of the file on a ForkJoinPool, and the results are
+ * stitched back together in their original order.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.InterruptedIOException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public final class ParallelReader {
+
+  /**
+   * Split the file into a few ranges per thread so threads which finish early can
+   * pick up more work.
+   */
+  private static final int RANGES_PER_THREAD = 4;
+
+  /**
+   * Chunks start out with room for one value per this many bytes of their range, so a
+   * range of short values grows a few times rather than a range of long values
+   * reserving far more memory than it uses.
+   */
+  private static final int BYTES_PER_VALUE_GUESS = 16;
+
+  // The largest array the JVM can allocate
+  private static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+  private ParallelReader() {}
+
+  /**
+   * Reads all the integers in a file.
+   * @param  file           The path of the file to read.
+   * @param  parallelism    The number of threads to parse with.
+   * @return The integers of the file in the order they appear.
+   * @throws IOException if the file cannot be read.
+   */
+  public static int[] readInts(Path file, int parallelism) throws IOException {
+    List<Chunk> chunks = parse(file, parallelism, (in, capacity) -> {
+      int[] values = new int[capacity];
+      int n = 0;
+      while (in.hasMoreTokens()) {
+        if (n == values.length) values = Arrays.copyOf(values, grow(n));
+        values[n++] = in.nextInt();
+      }
+      return new Chunk(values, n);
+    });
+    return (int[]) stitch(chunks, new int[totalSize(chunks)]);
+  }
+
+  /**
+   * Reads all the longs in a file.
+   * @param  file           The path of the file to read.
+   * @param  parallelism    The number of threads to parse with.
+   * @return The longs of the file in the order they appear.
+   * @throws IOException if the file cannot be read.
+   */
+  public static long[] readLongs(Path file, int parallelism) throws IOException {
+    List<Chunk> chunks = parse(file, parallelism, (in, capacity) -> {
+      long[] values = new long[capacity];
+      int n = 0;
+      while (in.hasMoreTokens()) {
+        if (n == values.length) values = Arrays.copyOf(values, grow(n));
+        values[n++] = in.nextLong();
+      }
+      return new Chunk(values, n);
+    });
+    return (long[]) stitch(chunks, new long[totalSize(chunks)]);
+  }
+
+  /**
+   * Reads all the doubles in a file.
+   * @param  file           The path of the file to read.
+   * @param  parallelism    The number of threads to parse with.
+   * @return The doubles of the file in the order they appear.
+   * @throws IOException if the file cannot be read.
+   */
+  public static double[] readDoubles(Path file, int parallelism) throws IOException {
+    List<Chunk> chunks = parse(file, parallelism, (in, capacity) -> {
+      double[] values = new double[capacity];
+      int n = 0;
+      while (in.hasMoreTokens()) {
+        if (n == values.length) values = Arrays.copyOf(values, grow(n));
+        values[n++] = in.nextDouble();
+      }
+      return new Chunk(values, n);
+    });
+    return (double[]) stitch(chunks, new double[totalSize(chunks)]);
+  }
+
+  // The values parsed out of one range, an array of which the first size elements are used
+  private static final class Chunk {
+    final Object values;
+    final int size;
+    Chunk(Object values, int size) {
+      this.values = values;
+      this.size = size;
+    }
+  }
+
+  // Parses a range of the file into a chunk, given a guess of how many values it holds
+  private interface RangeParser {
+    Chunk parse(InputReader in, int capacity) throws IOException;
+  }
+
+  // Splits the file into ranges and parses them on a ForkJoinPool, returning the results in order
+  private static List<Chunk> parse(Path file, int parallelism, RangeParser parser) throws IOException {
+    if (file == null || parallelism <= 0)
+      throw new IllegalArgumentException();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+      long[] bounds = split(channel, parallelism);
+      List<Callable<Chunk>> tasks = new ArrayList<>();
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        long start = bounds[i], end = bounds[i + 1];
+        int capacity = (int) Math.min(MAX_ARRAY_LENGTH, Math.max(16, (end - start) / BYTES_PER_VALUE_GUESS));
+        tasks.add(() -> parser.parse(new InputReader(new MappedFileInputStream(
+            channel, start, end, MappedFileInputStream.WINDOW_SIZE)), capacity));
+      }
+
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        List<Chunk> results = new ArrayList<>();
+        for (Future<Chunk> future : pool.invokeAll(tasks)) results.add(future.get());
+        return results;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) throw (IOException) cause;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        throw new IOException(cause);
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Computes the boundaries of the ranges to parse. Every boundary except the
+   * first is moved forward onto a delimiter so that each token lies in one range.
+   */
+  static long[] split(FileChannel channel, int parallelism) throws IOException {
+    long size = channel.size();
+    int ranges = (int) Math.max(1, Math.min((long) parallelism * RANGES_PER_THREAD, size / MappedFileInputStream.MIN_SPLIT_SIZE));
+    long[] bounds = new long[ranges + 1];
+    bounds[ranges] = size;
+    for (int i = 1; i < ranges; i++) {
+      long nominal = Math.max(bounds[i - 1], size / ranges * i);
+      bounds[i] = MappedFileInputStream.findDelimiter(channel, nominal, size);
+    }
+    return bounds;
+  }
+
+  // Copies the chunks one after another into the result array
+  private static Object stitch(List<Chunk> chunks, Object result) {
+    int offset = 0;
+    for (Chunk chunk : chunks) {
+      System.arraycopy(chunk.values, 0, result, offset, chunk.size);
+      offset += chunk.size;
+    }
+    return result;
+  }
+
+  // The length to grow a full chunk array of the given length to, doubling up to the largest array
+  private static int grow(int length) {
+    if (length >= MAX_ARRAY_LENGTH)
+      throw new IllegalStateException("Range holds more than " + MAX_ARRAY_LENGTH + " values which do not fit in one array");
+    return (int) Math.min(MAX_ARRAY_LENGTH, (long) length << 1);
+  }
+
+  private static int totalSize(List<Chunk> chunks) {
+    long length = 0;
+    for (Chunk chunk : chunks) length += chunk.size;
+    if (length > MAX_ARRAY_LENGTH)
+      throw new IllegalStateException("File holds " + length + " values which do not fit in one array");
+    return (int) length;
+  }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * An InputStream which reads ahead of its consumer on a background thread, so that
+ * the latency of a slow source (a pipe, a socket...) overlaps with the time spent
+ * parsing. The background thread fills a ring of buffers from the source and hands
+ * them to the consumer through two sequence counters, one written by each side, so
+ * the handoff takes no locks. A side only parks when the ring is full or empty and is
+ * unparked by the other side as soon as that changes.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.InputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+final class PrefetchInputStream extends InputStream {
+
+  // The length of a buffer which marks the end of the source or a failed read
+  private static final int END = -1, FAILED = -2;
+
+  private final InputStream source;
+  private final byte[][] buffers;
+  private final int[] lengths;
+  private final Thread producer;
+
+  // The number of buffers filled by the producer and released by the consumer so far
+  private volatile long produced, consumed;
+
+  // A thread parked waiting on the other side, or null
+  private volatile Thread waitingConsumer, waitingProducer;
+
+  private volatile boolean closed;
+  private volatile IOException failure;
+
+  // Read position in the consumer's current buffer
+  private int pos;
+
+  /**
+   * Create a stream which starts reading the source ahead right away.
+   * @param source        The stream to read ahead of.
+   * @param buffers       The number of buffers in the ring, at least two.
+   * @param bufferSize    The size of each buffer.
+   */
+  PrefetchInputStream(InputStream source, int buffers, int bufferSize) {
+    if (source == null || buffers < 2 || bufferSize <= 0)
+      throw new IllegalArgumentException();
+    this.source = source;
+    this.buffers = new byte[buffers][bufferSize];
+    this.lengths = new int[buffers];
+    producer = new Thread(this::fillBuffers, "InputReader-prefetch");
+    producer.setDaemon(true);
+    producer.start();
+  }
+
+  // Runs on the producer thread, filling free buffers until the source ends or fails
+  private void fillBuffers() {
+    long p = 0;
+    while (!closed) {
+
+      // Wait for the consumer to release a buffer when the ring is full
+      while (p - consumed == buffers.length) {
+        waitingProducer = Thread.currentThread();
+        if (p - consumed < buffers.length || closed) break;
+        LockSupport.park(this);
+      }
+      waitingProducer = null;
+      if (closed) return;
+
+      int slot = (int) (p % buffers.length);
+      int n;
+      try {
+        do {
+          n = source.read(buffers[slot]);
+        } while (n == 0);
+      } catch (IOException e) {
+        failure = e;
+        n = FAILED;
+      }
+      lengths[slot] = n;
+
+      produced = ++p;
+      Thread consumer = waitingConsumer;
+      if (consumer != null) LockSupport.unpark(consumer);
+      if (n < 0) return;
+    }
+  }
+
+  /**
+   * Waits until the consumer's current buffer has been filled.
+   * @return The length of the current buffer, or END at the end of the stream.
+   */
+  private int current() throws IOException {
+    long c = consumed;
+    while (produced == c) {
+      if (closed) throw new IOException("Stream closed");
+      waitingConsumer = Thread.currentThread();
+      if (produced != c) break;
+      LockSupport.park(this);
+    }
+    waitingConsumer = null;
+    int length = lengths[(int) (c % buffers.length)];
+    if (length == FAILED) throw new IOException(failure);
+    return length;
+  }
+
+  // Hands the consumer's current buffer back to the producer
+  private void release() {
+    pos = 0;
+    consumed = consumed + 1;
+    Thread p = waitingProducer;
+    if (p != null) LockSupport.unpark(p);
+  }
+
+  @Override
+  public int read() throws IOException {
+    int length = current();
+    if (length == END) return -1;
+    int b = buffers[(int) (consumed % buffers.length)][pos++] & 0xff;
+    if (pos == length) release();
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) return 0;
+    int length = current();
+    if (length == END) return -1;
+    int n = Math.min(len, length - pos);
+    System.arraycopy(buffers[(int) (consumed % buffers.length)], pos, b, off, n);
+    pos += n;
+    if (pos == length) release();
+    return n;
+  }
+
+  @Override
+  public int available() {
+    long c = consumed;
+    if (produced == c) return 0;
+    return Math.max(0, lengths[(int) (c % buffers.length)] - pos);
+  }
+
+  /**
+   * Stops reading ahead and closes the source, which also unblocks the producer if it
+   * is waiting on the source.
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    LockSupport.unpark(producer);
+    source.close();
+  }
+
+}
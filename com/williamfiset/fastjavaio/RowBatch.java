@@ -0,0 +1,171 @@
+/**
+ * A reusable batch of rows with a fixed schema, stored column by column. Each column
+ * is one primitive array (or a String array), so a batch filled by
+ * {@link InputReader#readBatch(RowBatch)} can be aggregated with tight loops over
+ * contiguous memory instead of one object or one call per field.
+ *
+ * <pre>{@code
+ * RowBatch batch = new RowBatch(4096, RowBatch.Type.LONG, RowBatch.Type.INT, RowBatch.Type.DOUBLE);
+ * long[] ids = batch.longs(0);
+ * double[] prices = batch.doubles(2);
+ * while (in.readBatch(batch) > 0)
+ *   for (int i = 0; i < batch.size(); i++) total += prices[i];
+ * }</pre>
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.util.Arrays;
+
+public final class RowBatch {
+
+  /**
+   * The type of a column, which decides the InputReader method used to read it.
+   */
+  public enum Type {
+
+    // Read with nextInt() into an int[]
+    INT,
+
+    // Read with nextLong() into a long[]
+    LONG,
+
+    // Read with nextDouble() into a double[]
+    DOUBLE,
+
+    // Read with nextString() into a String[]
+    STRING
+
+  }
+
+  // The codes of the column types, in the order of Type
+  static final byte INT = 0, LONG = 1, DOUBLE = 2, STRING = 3;
+
+  // The type code of every column, switched on for each field
+  final byte[] types;
+
+  // The array holding each column, exactly one of which is set per column
+  final int[][] ints;
+  final long[][] longs;
+  final double[][] doubles;
+  final String[][] strings;
+
+  private final int capacity;
+  int size;
+
+  /**
+   * Create an empty batch.
+   * @param capacity    The number of rows the batch holds.
+   * @param schema      The type of every column of a row, in the order they appear.
+   */
+  public RowBatch(int capacity, Type... schema) {
+    if (capacity <= 0 || schema == null || schema.length == 0)
+      throw new IllegalArgumentException();
+    int n = schema.length;
+    this.capacity = capacity;
+    types = new byte[n];
+    ints = new int[n][];
+    longs = new long[n][];
+    doubles = new double[n][];
+    strings = new String[n][];
+    for (int i = 0; i < n; i++) {
+      if (schema[i] == null) throw new IllegalArgumentException("Column " + i + " has no type");
+      types[i] = (byte) schema[i].ordinal();
+      switch (schema[i]) {
+        case INT: ints[i] = new int[capacity]; break;
+        case LONG: longs[i] = new long[capacity]; break;
+        case DOUBLE: doubles[i] = new double[capacity]; break;
+        default: strings[i] = new String[capacity];
+      }
+    }
+  }
+
+  // The number of rows the batch holds
+  public int capacity() {
+    return capacity;
+  }
+
+  // The number of rows read into the batch by the last call to readBatch
+  public int size() {
+    return size;
+  }
+
+  // The number of columns in a row
+  public int columns() {
+    return types.length;
+  }
+
+  // The type of the given column
+  public Type type(int column) {
+    return Type.values()[types[column]];
+  }
+
+  /**
+   * Returns the array backing an INT column. Only the first {@link #size()} values
+   * belong to the current batch; the array is refilled in place by the next read.
+   * @throws IllegalArgumentException if the column is not of type INT.
+   */
+  public int[] ints(int column) {
+    return column(ints, column, Type.INT);
+  }
+
+  /**
+   * Returns the array backing a LONG column, like {@link #ints(int)}.
+   * @throws IllegalArgumentException if the column is not of type LONG.
+   */
+  public long[] longs(int column) {
+    return column(longs, column, Type.LONG);
+  }
+
+  /**
+   * Returns the array backing a DOUBLE column, like {@link #ints(int)}.
+   * @throws IllegalArgumentException if the column is not of type DOUBLE.
+   */
+  public double[] doubles(int column) {
+    return column(doubles, column, Type.DOUBLE);
+  }
+
+  /**
+   * Returns the array backing a STRING column, like {@link #ints(int)}.
+   * @throws IllegalArgumentException if the column is not of type STRING.
+   */
+  public String[] strings(int column) {
+    return column(strings, column, Type.STRING);
+  }
+
+  private <T> T column(T[] arrays, int column, Type type) {
+    if (column < 0 || column >= types.length)
+      throw new IndexOutOfBoundsException("Column " + column + " of " + types.length);
+    if (types[column] != type.ordinal())
+      throw new IllegalArgumentException("Column " + column + " is of type " + type(column) + ", not " + type);
+    return arrays[column];
+  }
+
+  // Adds the values in the given number of rows to the counters of the stats
+  void count(InputReaderStats stats, int rows) {
+    for (byte type : types) {
+      switch (type) {
+        case INT: stats.add(InputReaderStats.INTS, rows); break;
+        case LONG: stats.add(InputReaderStats.LONGS, rows); break;
+        case DOUBLE: stats.add(InputReaderStats.DOUBLES, rows); break;
+        default: stats.add(InputReaderStats.STRINGS, rows);
+      }
+    }
+  }
+
+  // Empties the batch, dropping its references to Strings
+  public void clear() {
+    for (String[] column : strings)
+      if (column != null) Arrays.fill(column, 0, size, null);
+    size = 0;
+  }
+
+  @Override
+  public String toString() {
+    String[] names = new String[types.length];
+    for (int i = 0; i < names.length; i++) names[i] = type(i).name();
+    return "RowBatch[size=" + size + ", capacity=" + capacity + ", schema=" + Arrays.toString(names) + "]";
+  }
+
+}
@@ -0,0 +1,189 @@
+/**
+ * A bounded symbol table which hands out one canonical String per distinct token so
+ * that inputs with few distinct words (country codes, status names, host names...)
+ * do not create a new String for every occurrence. Tokens are hashed and compared as
+ * raw bytes straight out of the InputReader's buffer, so a hit allocates nothing.
+ *
+ * The table uses open addressing where every token may live in one of a few slots
+ * after its home slot. When all of those slots are taken, a CLOCK (second chance)
+ * policy evicts a token which has not been looked up since it was last passed over.
+ * Tokens longer than {@link #MAX_TOKEN_LENGTH} bytes are never cached.
+ *
+ * A cache can be shared by several InputReaders, but it is not thread safe.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.nio.ByteBuffer;
+
+public final class StringCache {
+
+  /**
+   * The longest token, in bytes, which is cached.
+   */
+  public static final int MAX_TOKEN_LENGTH = 64;
+
+  // The number of slots starting at its home slot a token may be stored in
+  private static final int PROBE_LIMIT = 8;
+
+  private final byte[][] keys;
+  private final String[] values;
+  private final int[] hashes;
+
+  // Set when a slot is looked up and cleared when eviction passes over it
+  private final boolean[] referenced;
+
+  private final int mask;
+  private int size;
+  private long hits, misses, evictions;
+
+  /**
+   * Create a cache which holds at most capacity strings.
+   * @param capacity    The maximum number of strings, rounded up to a power of two (at least 8).
+   */
+  public StringCache(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30)
+      throw new IllegalArgumentException();
+    int slots = Math.max(PROBE_LIMIT, Integer.highestOneBit(capacity - 1) << 1);
+    keys = new byte[slots][];
+    values = new String[slots];
+    hashes = new int[slots];
+    referenced = new boolean[slots];
+    mask = slots - 1;
+  }
+
+  /**
+   * Hashes the bytes b[from, to) eight at a time, given a little endian view over b.
+   */
+  static int hash(byte[] b, ByteBuffer view, int from, int to) {
+    long h = to - from;
+    int i = from;
+    for (; i + 8 <= to; i += 8) h = (h ^ view.getLong(i)) * 0x9e3779b97f4a7c15L;
+    long tail = 0;
+    for (int shift = 0; i < to; i++, shift += 8) tail |= (b[i] & 0xffL) << shift;
+    h = (h ^ tail) * 0x9e3779b97f4a7c15L;
+    return (int) (h >>> 32);
+  }
+
+  /**
+   * Returns the canonical string for the UTF-8 token b[from, to), decoding and caching
+   * it on a miss, given a little endian view over b.
+   */
+  String intern(byte[] b, ByteBuffer view, int from, int to) {
+    int hash = hash(b, view, from, to);
+    String str = get(b, from, to, hash);
+    if (str == null) {
+      str = Utf8.decode(b, view, from, to);
+      put(b, from, to, hash, str);
+    }
+    return str;
+  }
+
+  /**
+   * Looks up the token b[from, to) given its hash.
+   * @return The cached string or null if the token is not in the cache.
+   */
+  String get(byte[] b, int from, int to, int hash) {
+    if (to - from > MAX_TOKEN_LENGTH) {
+      misses++;
+      return null;
+    }
+    for (int i = 0; i < PROBE_LIMIT; i++) {
+      int slot = hash + i & mask;
+      byte[] key = keys[slot];
+      if (key == null) break;
+      if (hashes[slot] == hash && matches(key, b, from, to)) {
+        referenced[slot] = true;
+        hits++;
+        return values[slot];
+      }
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Adds the string s for the token b[from, to), which must not be in the cache yet,
+   * evicting another token if every slot it may use is taken.
+   */
+  void put(byte[] b, int from, int to, int hash, String s) {
+    if (to - from > MAX_TOKEN_LENGTH) return;
+
+    int victim = -1;
+    for (int i = 0; i < PROBE_LIMIT; i++) {
+      int slot = hash + i & mask;
+      if (keys[slot] == null) {
+        size++;
+        store(slot, b, from, to, hash, s);
+        return;
+      }
+      if (victim < 0 && !referenced[slot]) victim = slot;
+    }
+
+    // Every slot holds a token, so evict one which was not looked up since the last
+    // eviction here and give the others a second chance
+    if (victim < 0) victim = hash & mask;
+    for (int i = 0; i < PROBE_LIMIT; i++) referenced[hash + i & mask] = false;
+    evictions++;
+    store(victim, b, from, to, hash, s);
+  }
+
+  private void store(int slot, byte[] b, int from, int to, int hash, String s) {
+    byte[] key = new byte[to - from];
+    System.arraycopy(b, from, key, 0, key.length);
+    keys[slot] = key;
+    values[slot] = s;
+    hashes[slot] = hash;
+    referenced[slot] = false;
+  }
+
+  private static boolean matches(byte[] key, byte[] b, int from, int to) {
+    if (key.length != to - from) return false;
+    for (int i = 0; i < key.length; i++)
+      if (key[i] != b[from + i]) return false;
+    return true;
+  }
+
+  // The number of times a token was found in the cache
+  public long hits() {
+    return hits;
+  }
+
+  // The number of times a token was not found in the cache
+  public long misses() {
+    return misses;
+  }
+
+  // The number of strings which were dropped to make room for another
+  public long evictions() {
+    return evictions;
+  }
+
+  // The number of strings currently in the cache
+  public int size() {
+    return size;
+  }
+
+  // The largest number of strings the cache can hold
+  public int capacity() {
+    return keys.length;
+  }
+
+  // Removes every string from the cache and resets the statistics
+  public void clear() {
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = null;
+      values[i] = null;
+    }
+    size = 0;
+    hits = misses = evictions = 0;
+  }
+
+  @Override
+  public String toString() {
+    return "StringCache[size=" + size + ", capacity=" + capacity() + ", hits=" + hits +
+      ", misses=" + misses + ", evictions=" + evictions + "]";
+  }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * SIMD within a register (SWAR) helpers which operate on eight bytes of input at a
+ * time packed into a long. Words are always loaded in little endian order so the
+ * first byte of input is the least significant byte of the word.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+final class Swar {
+
+  // The high bit of every byte in a word
+  static final long HIGH_BITS = 0x8080808080808080L;
+
+  // Each byte of a word set to one
+  static final long ONES = 0x0101010101010101L;
+
+  // Each byte of a word set to the ASCII character '0'
+  private static final long ZEROS = 0x3030303030303030L;
+
+  private Swar() {}
+
+  /**
+   * Returns a mask with the high bit set in every byte of the word which is not an
+   * ASCII digit. The number of leading digits is numberOfTrailingZeros(mask) / 8.
+   */
+  static long nonDigitMask(long word) {
+    // Digits map to the values 0 to 9 and every other byte maps to a value >= 10
+    long x = word ^ ZEROS;
+    return (((x & 0x7f7f7f7f7f7f7f7fL) + 0x7676767676767676L) | x) & HIGH_BITS;
+  }
+
+  /**
+   * Returns a mask with the high bit set in the first byte of the word equal to b.
+   * Bits above the first match may be set spuriously, so only the lowest set bit
+   * (found with numberOfTrailingZeros) is meaningful.
+   */
+  static long matchMask(long word, byte b) {
+    long x = word ^ (ONES * (b & 0xff));
+    return (x - ONES) & ~x & HIGH_BITS;
+  }
+
+  /**
+   * Returns a mask with the high bit set in every byte of the word which is greater
+   * than token when compared as an unsigned byte, for 0 <= token < 127.
+   */
+  static long greaterThanMask(long word, int token) {
+    // Adding 127 - token carries into the high bit of bytes above token, and bytes
+    // which already have their high bit set are above any token
+    return (((word & 0x7f7f7f7f7f7f7f7fL) + ONES * (0x7f - token)) | word) & HIGH_BITS;
+  }
+
+  /**
+   * Converts a word of eight ASCII digits into its integer value.
+   */
+  static int parseEightDigits(long word) {
+    return combine(word ^ ZEROS);
+  }
+
+  /**
+   * Converts the first n (1 to 8) ASCII digits of a word into their integer value.
+   * The bytes after the first n are ignored.
+   */
+  static int parseDigits(long word, int n) {
+    // Shift the digits to the top of the word, which pads them with leading zeros
+    return combine((word ^ ZEROS) << ((8 - n) << 3));
+  }
+
+  // Combines eight digit values into one number by merging pairs, then quads, then halves
+  private static int combine(long val) {
+    val = (val * 2561) >>> 8;
+    val = ((val & 0x00ff00ff00ff00ffL) * 6553601) >>> 16;
+    return (int) (((val & 0x0000ffff0000ffffL) * 42949672960001L) >>> 32);
+  }
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Primitive spliterators which parse values straight out of an InputReader's buffer
+ * without boxing. When the reader is backed by a memory mapped file, trySplit cuts the
+ * unread part of the file in two at a token boundary and hands the second half to a
+ * new reader, so parallel streams scale across cores. For any other source, and for
+ * CSV input, the values are split off in batches the way {@link java.util.Spliterators}
+ * does for iterators. In CSV mode every field is a value, empty ones included, just
+ * as for readInts and the other bulk reads.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+final class TokenSpliterator {
+
+  private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL;
+
+  private TokenSpliterator() {}
+
+  static final class Ints extends Spliterators.AbstractIntSpliterator {
+
+    private final InputReader in;
+
+    Ints(InputReader in) {
+      super(Long.MAX_VALUE, CHARACTERISTICS);
+      this.in = in;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+      try {
+        if (!in.hasMoreValues()) return false;
+        action.accept(in.nextInt());
+        return true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+      try {
+        while (in.hasMoreValues()) action.accept(in.nextInt());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+      InputReader rest = splitReader(in);
+      return rest != null ? new Ints(rest) : super.trySplit();
+    }
+
+    @Override
+    public long estimateSize() {
+      return in.remainingBytes();
+    }
+
+  }
+
+  static final class Longs extends Spliterators.AbstractLongSpliterator {
+
+    private final InputReader in;
+
+    Longs(InputReader in) {
+      super(Long.MAX_VALUE, CHARACTERISTICS);
+      this.in = in;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      try {
+        if (!in.hasMoreValues()) return false;
+        action.accept(in.nextLong());
+        return true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      try {
+        while (in.hasMoreValues()) action.accept(in.nextLong());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+      InputReader rest = splitReader(in);
+      return rest != null ? new Longs(rest) : super.trySplit();
+    }
+
+    @Override
+    public long estimateSize() {
+      return in.remainingBytes();
+    }
+
+  }
+
+  static final class Doubles extends Spliterators.AbstractDoubleSpliterator {
+
+    private final InputReader in;
+
+    Doubles(InputReader in) {
+      super(Long.MAX_VALUE, CHARACTERISTICS);
+      this.in = in;
+    }
+
+    @Override
+    public boolean tryAdvance(DoubleConsumer action) {
+      try {
+        if (!in.hasMoreValues()) return false;
+        action.accept(in.nextDouble());
+        return true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void forEachRemaining(DoubleConsumer action) {
+      try {
+        while (in.hasMoreValues()) action.accept(in.nextDouble());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public Spliterator.OfDouble trySplit() {
+      InputReader rest = splitReader(in);
+      return rest != null ? new Doubles(rest) : super.trySplit();
+    }
+
+    @Override
+    public long estimateSize() {
+      return in.remainingBytes();
+    }
+
+  }
+
+  private static InputReader splitReader(InputReader in) {
+    try {
+      return in.trySplit();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
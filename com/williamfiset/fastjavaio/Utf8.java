@@ -0,0 +1,38 @@
+/**
+ * Decodes UTF-8 bytes into Strings. Most text is plain ASCII, so spans are first
+ * checked eight bytes at a time and pure ASCII spans are turned into compact Latin-1
+ * Strings directly. Only spans which hold other characters go through the UTF-8
+ * decoder, which replaces malformed sequences with U+FFFD like the JDK does.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+final class Utf8 {
+
+  private Utf8() {}
+
+  /**
+   * Decodes the bytes b[from, to), given a little endian view over b.
+   */
+  static String decode(byte[] b, ByteBuffer view, int from, int to) {
+    if (isAscii(b, view, from, to))
+      return new String(b, from, to - from, StandardCharsets.ISO_8859_1);
+    return new String(b, from, to - from, StandardCharsets.UTF_8);
+  }
+
+  // Whether none of the bytes b[from, to) has its high bit set
+  static boolean isAscii(byte[] b, ByteBuffer view, int from, int to) {
+    int i = from;
+    while (i + 8 <= to) {
+      if ((view.getLong(i) & Swar.HIGH_BITS) != 0) return false;
+      i += 8;
+    }
+    while (i < to) if (b[i++] < 0) return false;
+    return true;
+  }
+
+}
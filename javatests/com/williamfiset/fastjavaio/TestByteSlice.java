@@ -0,0 +1,99 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.ByteSlice;
+import org.junit.*;
+import java.util.*;
+import java.io.*;
+
+public class TestByteSlice {
+
+  private ByteSlice slice(String s) {
+    byte[] bytes = ("xx" + s + "yy").getBytes();
+    return new ByteSlice(bytes, 2, bytes.length - 4);
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testIllegalBounds() {
+    new ByteSlice(new byte[4], 2, 3);
+  }
+
+  @Test
+  public void testCharSequence() {
+    ByteSlice s = slice("hello");
+    assertEquals(5, s.length());
+    assertFalse(s.isEmpty());
+    assertEquals('h', s.charAt(0));
+    assertEquals('o', s.charAt(4));
+    assertEquals("ell", s.subSequence(1, 4).toString());
+    assertEquals("hello", s.toString());
+    assertEquals("hello!", new StringBuilder().append(s).append('!').toString());
+    assertTrue(new ByteSlice().isEmpty());
+  }
+
+  @Test(expected=IndexOutOfBoundsException.class)
+  public void testCharAtOutOfBounds() {
+    slice("abc").charAt(3);
+  }
+
+  @Test
+  public void testContentEquals() {
+    ByteSlice s = slice("GET");
+    assertTrue(s.contentEquals("GET"));
+    assertFalse(s.contentEquals("GETS"));
+    assertFalse(s.contentEquals("PUT"));
+    assertTrue(s.startsWith("GE"));
+    assertTrue(s.startsWith(""));
+    assertFalse(s.startsWith("GETS"));
+  }
+
+  @Test
+  public void testEqualsAndHashCode() {
+    assertEquals(slice("token"), slice("token"));
+    assertNotEquals(slice("token"), slice("tokens"));
+    assertNotEquals(slice("token"), "token");
+    assertEquals("token".hashCode(), slice("token").hashCode());
+    assertEquals(slice("token").hashCode(), slice("token").hashCode());
+
+    Set<ByteSlice> set = new HashSet<>();
+    set.add(slice("a"));
+    assertTrue(set.contains(slice("a")));
+  }
+
+  @Test
+  public void testParse() {
+    assertEquals(123, slice("123").parseInt());
+    assertEquals(-45, slice("-45").parseInt());
+    assertEquals(7, slice("+7").parseInt());
+    assertEquals(Long.MIN_VALUE, slice("-9223372036854775808").parseLong());
+    assertEquals(9876543210L, slice("9876543210").parseLong());
+    assertEquals(-2.5e-3, slice("-2.5e-3").parseDouble(), 0.0);
+    assertEquals(0.1f, slice("0.1").parseFloat(), 0.0f);
+  }
+
+  @Test(expected=NumberFormatException.class)
+  public void testParseIntNotANumber() {
+    slice("12a").parseInt();
+  }
+
+  @Test
+  public void testParseFollowedByDigits() {
+    // The digits after the slice share a word with its last digits but are not parsed
+    byte[] bytes = "1234567890123456789".getBytes();
+    assertEquals(1234, new ByteSlice(bytes, 0, 4).parseInt());
+    assertEquals(-345678901L, new ByteSlice("-3456789012345".getBytes(), 0, 10).parseLong());
+    assertEquals(123456789012L, new ByteSlice(bytes, 0, 12).parseLong());
+  }
+
+  @Test(expected=NumberFormatException.class)
+  public void testParseNotANumberFollowedByDigits() {
+    new ByteSlice("12a456789".getBytes(), 0, 4).parseInt();
+  }
+
+  @Test(expected=NumberFormatException.class)
+  public void testParseIntEmpty() {
+    slice("-").parseInt();
+  }
+
+}
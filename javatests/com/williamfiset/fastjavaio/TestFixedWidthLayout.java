@@ -0,0 +1,182 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.FixedWidthLayout;
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.InputReaderStats;
+import com.williamfiset.fastjavaio.RowBatch;
+import com.williamfiset.fastjavaio.RowBatch.Type;
+import org.junit.*;
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+
+public class TestFixedWidthLayout {
+
+  private static InputReader getReader(String s, int bufferSize) {
+    return new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+  }
+
+  // An id, a name, filler, an amount and a count, padded to 6, 8, 2, 7 and 4 bytes
+  private static final FixedWidthLayout LAYOUT = new FixedWidthLayout(
+    new int[] {6, 8, 2, 7, 4}, new Type[] {Type.LONG, Type.STRING, null, Type.DOUBLE, Type.INT});
+
+  @Test
+  public void testReadBatch() throws IOException {
+
+    String input =
+      "000001apple   xx  12.50   7\n" +
+      "    42banana  xx-3.25   -10\n" +
+      "-12   ch rry  xx1e3    0003\n" +
+      "999999        xx0         0\n" +
+      "     7durian  xx   .5    42\n";
+    for (int bufferSize = 1; bufferSize <= 64; bufferSize++) {
+      InputReader in = getReader(input, bufferSize);
+      RowBatch batch = LAYOUT.newBatch(2);
+
+      assertEquals(2, in.readBatch(LAYOUT, batch));
+      assertArrayEquals(new long[] {1, 42}, batch.longs(0));
+      assertArrayEquals(new String[] {"apple", "banana"}, batch.strings(1));
+      assertArrayEquals(new double[] {12.5, -3.25}, batch.doubles(2), 0);
+      assertArrayEquals(new int[] {7, -10}, batch.ints(3));
+
+      // Spaces inside a String are kept, a blank String is empty
+      assertEquals(2, in.readBatch(LAYOUT, batch));
+      assertArrayEquals(new long[] {-12, 999999}, batch.longs(0));
+      assertArrayEquals(new String[] {"ch rry", ""}, batch.strings(1));
+      assertArrayEquals(new double[] {1000, 0}, batch.doubles(2), 0);
+      assertArrayEquals(new int[] {3, 0}, batch.ints(3));
+
+      assertEquals(1, in.readBatch(LAYOUT, batch));
+      assertArrayEquals(new String[] {"durian", null}, batch.strings(1));
+      assertEquals(0.5, batch.doubles(2)[0], 0);
+
+      assertEquals(0, in.readBatch(LAYOUT, batch));
+      assertEquals(0, batch.size());
+      assertEquals(input.length(), in.position());
+    }
+
+  }
+
+  @Test
+  public void testTerminators() throws IOException {
+
+    Type[] types = {Type.INT, Type.INT};
+    FixedWidthLayout crlf = new FixedWidthLayout(new int[] {3, 3}, types, "\r\n");
+    FixedWidthLayout none = new FixedWidthLayout(new int[] {3, 3}, types, "");
+    assertEquals(8, crlf.recordLength());
+    assertEquals(6, none.recordLength());
+
+    for (int bufferSize = 1; bufferSize <= 16; bufferSize++) {
+      // The last record may lack its terminator
+      InputReader in = getReader("  1  2\r\n 10 20\r\n100200", bufferSize);
+      RowBatch batch = crlf.newBatch(8);
+      assertEquals(3, in.readBatch(crlf, batch));
+      assertArrayEquals(new int[] {1, 10, 100}, Arrays.copyOf(batch.ints(0), 3));
+      assertArrayEquals(new int[] {2, 20, 200}, Arrays.copyOf(batch.ints(1), 3));
+
+      in = getReader("  1  2 10 20100200", bufferSize);
+      assertEquals(3, in.readBatch(none, batch));
+      assertArrayEquals(new int[] {2, 20, 200}, Arrays.copyOf(batch.ints(1), 3));
+    }
+
+  }
+
+  // Reads the good records, if any, in one batch and checks that the calls after it throw with the message
+  private static void checkBadRecord(FixedWidthLayout layout, String input, int bufferSize, int[] good, String message) throws IOException {
+    RowBatch batch = layout.newBatch(8);
+    InputReader in = getReader(input, bufferSize);
+    if (good.length > 0) {
+      assertEquals(good.length, in.readBatch(layout, batch));
+      assertArrayEquals(good, Arrays.copyOf(batch.ints(0), good.length));
+    }
+    for (int i = 0; i < 2; i++) {
+      try {
+        in.readBatch(layout, batch);
+        fail();
+      } catch (IOException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains(message));
+      }
+    }
+  }
+
+  @Test
+  public void testMisalignedRecords() throws IOException {
+    FixedWidthLayout layout = new FixedWidthLayout(new int[] {3}, new Type[] {Type.INT});
+    FixedWidthLayout crlf = new FixedWidthLayout(new int[] {3}, new Type[] {Type.INT}, "\r\n");
+    RowBatch batch = layout.newBatch(8);
+
+    // The records before a bad one are returned first, whether or not it crosses a refill
+    for (int bufferSize = 1; bufferSize <= 16; bufferSize++) {
+      checkBadRecord(layout, "  1\n 22\n4444\n", bufferSize, new int[] {1, 22}, "offset 8");
+      checkBadRecord(layout, "4444\n", bufferSize, new int[0], "offset 0");
+      checkBadRecord(layout, "  1\n 2", bufferSize, new int[] {1}, "2 of 4 bytes");
+      checkBadRecord(crlf, "  1\r\n  2\r", bufferSize, new int[] {1}, "1 of the 2 bytes of the terminator");
+    }
+
+    InputReader in = getReader("  1\n   \n", 64);
+    try {
+      in.readBatch(layout, batch);
+      fail();
+    } catch (NumberFormatException e) {}
+  }
+
+  @Test
+  public void testLongRecords() throws IOException {
+    // Records longer than the buffer and the scratch buffer are copied whole
+    char[] pad = new char[100];
+    Arrays.fill(pad, ' ');
+    String padding = new String(pad);
+    FixedWidthLayout layout = new FixedWidthLayout(new int[] {100, 100}, new Type[] {Type.STRING, Type.LONG});
+    InputReader in = getReader("x" + padding.substring(1) + padding.substring(2) + "17\n" +
+                               "y" + padding.substring(1) + padding.substring(2) + "18\n", 16);
+    RowBatch batch = layout.newBatch(4);
+    assertEquals(2, in.readBatch(layout, batch));
+    assertArrayEquals(new String[] {"x", "y", null, null}, batch.strings(0));
+    assertArrayEquals(new long[] {17, 18, 0, 0}, batch.longs(1));
+  }
+
+  @Test
+  public void testFlightRecorderEvents() throws IOException {
+    // A record longer than the scratch buffer grows it like a long token does
+    char[] digits = new char[100];
+    Arrays.fill(digits, '1');
+    FixedWidthLayout layout = new FixedWidthLayout(new int[] {50, 50}, new Type[] {Type.STRING, Type.STRING});
+    List<RecordedEvent> longTokens = TestInputReader.events(TestInputReader.record(new String(digits) + "\n", 16, in -> {
+      assertEquals(1, in.readBatch(layout, layout.newBatch(1)));
+    }), "LongToken");
+    assertEquals(1, longTokens.size());
+    assertFalse(longTokens.get(0).getBoolean("line"));
+    assertEquals(101, longTokens.get(0).getInt("length"));
+  }
+
+  @Test
+  public void testStats() throws IOException {
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader("000001apple   xx  12.50   7\n    42banana  xx-3.25   -10\n", 64);
+    in.enableStats(stats);
+    assertEquals(2, in.readBatch(LAYOUT, LAYOUT.newBatch(4)));
+    assertEquals(2, stats.getLongs());
+    assertEquals(2, stats.getStrings());
+    assertEquals(2, stats.getDoubles());
+    assertEquals(2, stats.getInts());
+  }
+
+  @Test
+  public void testInvalidLayouts() throws IOException {
+    Type[] one = {Type.INT};
+    try { new FixedWidthLayout(new int[] {0}, one); fail(); } catch (IllegalArgumentException e) {}
+    try { new FixedWidthLayout(new int[] {1, 2}, one); fail(); } catch (IllegalArgumentException e) {}
+    try { new FixedWidthLayout(new int[] {4}, new Type[] {null}); fail(); } catch (IllegalArgumentException e) {}
+    try { new FixedWidthLayout(new int[] {4}, one, null); fail(); } catch (IllegalArgumentException e) {}
+
+    InputReader in = getReader("1234\n", 64);
+    try {
+      in.readBatch(LAYOUT, new RowBatch(4, Type.INT));
+      fail();
+    } catch (IllegalArgumentException e) {}
+  }
+
+}
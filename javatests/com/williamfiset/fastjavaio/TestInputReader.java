@@ -2,10 +2,21 @@ package javatests.com.williamfiset.fastjavaio;
 
 import static org.junit.Assert.*;
 
+import com.williamfiset.fastjavaio.ByteSlice;
 import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.InputReaderStats;
+import com.williamfiset.fastjavaio.StringCache;
 import org.junit.*;
+import testfixtures.com.williamfiset.fastjavaio.DataGenerator;
 import java.util.*;
 import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.*;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 public class TestInputReader {
 
@@ -386,5 +397,1265 @@ public class TestInputReader {
   }
 
 
-}
+  // Create an input reader over a memory mapped temporary file
+  public static InputReader getMappedReader(String s) throws IOException {
+    Path file = Files.createTempFile("fastjavaio", ".txt");
+    file.toFile().deleteOnExit();
+    Files.write(file, s.getBytes());
+    int bufferSize = 1 + (int)(Math.random() * 50);
+    return new InputReader(file, bufferSize);
+  }
+
+  @Test
+  public void testSkipTokens() throws IOException {
+
+    String s = "  alpha beta\n\ngamma  12345678901234567890 delta\t7";
+    for (int bufferSize = 1; bufferSize <= s.length() + 1; bufferSize++) {
+      InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+      assertEquals(0, in.skipTokens(0));
+      assertEquals(2, in.skipTokens(2));
+      assertEquals("gamma", in.nextString());
+      assertEquals(2, in.skipTokens(2));
+      assertEquals(7, in.nextInt());
+      assertEquals(0, in.skipTokens(5));
+    }
+
+    InputReader in = new InputReader(new ByteArrayInputStream("a,\"b,\nc\",,d\n".getBytes()), 3);
+    in.enableCsv(",");
+    assertEquals(3, in.skipTokens(3));
+    assertEquals("d", in.nextString());
+
+  }
+
+  @Test
+  public void testSkipLines() throws IOException {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      for (int j = 0; j < i % 13; j++) sb.append((char) ('a' + j));
+      sb.append(' ').append(i).append('\n');
+    }
+    sb.append("no new line");
+    String s = sb.toString();
+
+    for (int bufferSize = 1; bufferSize <= 64; bufferSize++) {
+      InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+      assertEquals(10, in.skipLines(10));
+      in.nextString();
+      assertEquals(10, in.nextInt()); // Consumes the new line after it
+      assertEquals(89, in.skipLines(89));
+      assertEquals(1, in.skipLines(5));
+      assertNull(in.nextLine());
+      assertEquals(s.length(), in.position());
+    }
+
+    // Skipping a header
+    InputReader in = getReader("id value\n1 2\n");
+    assertEquals(1, in.skipLines(1));
+    assertEquals(1, in.nextInt());
+
+  }
+
+  @Test
+  public void testTryWithResources() throws IOException {
+    boolean[] closed = new boolean[1];
+    InputStream stream = new ByteArrayInputStream("1 2 3".getBytes()) {
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    };
+    try (InputReader in = new InputReader(stream)) {
+      in.enablePrefetch(2);
+      assertEquals(1, in.nextInt());
+    }
+    assertTrue(closed[0]);
+  }
+
+  @Test
+  public void testSkipBytes() throws IOException {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 10000; i++) sb.append(String.format("%05d\n", i));
+    String s = sb.toString();
+    Path file = Files.createTempFile("fastjavaio", ".txt");
+    file.toFile().deleteOnExit();
+    Files.write(file, s.getBytes());
+
+    // In memory streams, memory mapped files, file channels, file streams, whose skip
+    // goes past the end of the file, and pipes, whose skip throws
+    for (int source = 0; source < 5; source++) {
+      for (int bufferSize : new int[] {1, 7, 64, 4096}) {
+        InputReader in;
+        if (source == 0) in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+        else if (source == 1) in = new InputReader(file, bufferSize);
+        else if (source == 2) in = new InputReader(FileChannel.open(file), bufferSize);
+        else if (source == 3) in = new InputReader(new FileInputStream(file.toFile()), bufferSize);
+        else in = new InputReader(new FilterInputStream(new ByteArrayInputStream(s.getBytes())) {
+          @Override
+          public long skip(long n) throws IOException {
+            throw new IOException("Illegal seek");
+          }
+        }, bufferSize);
+
+        assertEquals(0, in.nextInt());
+        assertEquals(6 * 1233, in.skipBytes(6 * 1233));
+        assertEquals(1234, in.nextInt());
+        assertEquals(3, in.skipBytes(3));
+        assertEquals(35, in.nextInt());
+        assertEquals(6 * 5000, in.skipBytes(6 * 5000));
+        assertEquals(6236, in.nextInt());
+        assertEquals(6 * 6237, in.position());
+        assertEquals(s.length() - 6 * 6237, in.skipBytes(Long.MAX_VALUE));
+        assertEquals(s.length(), in.position());
+        assertEquals(0, in.skipBytes(10));
+        assertEquals(s.length(), in.position());
+        assertNull(in.nextString());
+        in.close();
+      }
+    }
+
+  }
+
+  @Test
+  public void testPosition() throws IOException {
+
+    String s = "12 -345  abc\n6.5e1 word\nlast line\n";
+    for (int bufferSize = 1; bufferSize <= s.length() + 1; bufferSize++) {
+      InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+      assertEquals(0, in.position());
+      in.nextInt();
+      assertEquals(3, in.position());
+      in.nextLong();
+      assertEquals(8, in.position());
+      in.nextString();
+      assertEquals(13, in.position());
+      in.nextDouble();
+      in.nextToken(new ByteSlice());
+      assertEquals(24, in.position());
+      assertEquals("last line", in.nextLine());
+      assertEquals(s.length(), in.position());
+      assertNull(in.nextString());
+      assertEquals(s.length(), in.position());
+    }
+
+  }
+
+  @Test
+  public void testResume() throws IOException {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 5000; i++) sb.append(i * 7919).append(i % 10 == 9 ? '\n' : ' ');
+    Path file = Files.createTempFile("fastjavaio", ".txt");
+    file.toFile().deleteOnExit();
+    Files.write(file, sb.toString().getBytes());
+
+    // Stop after any number of values, then carry on from the saved position
+    Random random = new Random(0);
+    for (int trial = 0; trial < 20; trial++) {
+      int stopAfter = random.nextInt(5001), bufferSize = 1 + random.nextInt(300);
+      InputReader in = new InputReader(file, bufferSize);
+      for (int i = 0; i < stopAfter; i++) assertEquals(i * 7919, in.nextInt());
+      long checkpoint = in.position();
+      in.close();
+
+      in = InputReader.resume(file, checkpoint, bufferSize);
+      assertEquals(checkpoint, in.position());
+      for (int i = stopAfter; i < 5000; i++) assertEquals(i * 7919, in.nextInt());
+      assertNull(in.nextString());
+      assertEquals(sb.length(), in.position());
+      in.close();
+    }
+
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testResumePastEnd() throws IOException {
+    Path file = Files.createTempFile("fastjavaio", ".txt");
+    file.toFile().deleteOnExit();
+    Files.write(file, "1 2 3".getBytes());
+    InputReader.resume(file, 6);
+  }
+
+  @Test
+  public void testMappedFile() throws IOException {
+
+    String s = "  123 3.141592  -77  abcdef  9876543210\n the lazy dog\n2.5 -0.125\n";
+    InputReader in = getMappedReader(s);
+
+    assertEquals( 123, in.nextInt() );
+    assertEquals( 3.141592, in.nextDouble(), 0.0000001 );
+    assertEquals( -77, in.nextByte() );
+    assertEquals( "abcdef", in.nextString() );
+    assertEquals( 9876543210L, in.nextLong() );
+    assertEquals( " the lazy dog", in.nextLine() );
+    assertEquals( 2.5, in.nextDoubleFast(), 0.0000001 );
+    assertEquals( -0.125, in.nextDoubleFast(), 0.0000001 );
+    assertNull( in.nextString() );
+    in.close();
+
+  }
+
+  @Test
+  public void testMappedFileLines() throws IOException {
+
+    String s = "Apple banana orange\n\n KiWi dragonFRuIt \n   \n  WatERmeOn  \n\n\nPEARS\n\n   ";
+    InputReader in = getMappedReader(s);
+    InputReader expected = getReader(s);
+
+    String line;
+    while ((line = expected.nextLine()) != null)
+      assertEquals(line, in.nextLine());
+    assertNull(in.nextLine());
+
+    in = getMappedReader("");
+    assertNull(in.nextLine());
+    assertNull(in.nextString());
+
+  }
+
+  @Test
+  public void testChannel() throws IOException {
+
+    String s = "  123 -456\n 789012345678 hello world \n next line\n";
+    InputStream is = new ByteArrayInputStream(s.getBytes());
+    InputReader in = new InputReader(Channels.newChannel(is), 7);
+
+    assertEquals( 123, in.nextInt() );
+    assertEquals( -456, in.nextInt() );
+    assertEquals( 789012345678L, in.nextLong() );
+    assertEquals( "hello", in.nextString() );
+    assertEquals( "world ", in.nextLine() );
+    assertEquals( " next line", in.nextLine() );
+    assertNull( in.nextLine() );
+
+  }
+
+  @Test
+  public void testPipeChannel() throws IOException {
+
+    Pipe pipe = Pipe.open();
+    Pipe.SinkChannel sink = pipe.sink();
+    sink.write(java.nio.ByteBuffer.wrap("7 8 9\nabc".getBytes()));
+    sink.close();
+
+    InputReader in = new InputReader(pipe.source(), 3);
+    assertArrayEquals( new int[]{7, 8, 9}, in.nextIntArray(3) );
+    assertEquals( "abc", in.nextLine() );
+    assertNull( in.nextLine() );
+    in.close();
+
+  }
+
+  @Test(expected=IllegalBlockingModeException.class)
+  public void testNonBlockingChannel() throws IOException {
+    Pipe pipe = Pipe.open();
+    pipe.source().configureBlocking(false);
+    new InputReader(pipe.source());
+  }
+
+  @Test
+  public void testNextIntAndLongManyDigits() throws IOException {
+
+    Random random = new Random(4);
+    int[] ints = new int[2000];
+    long[] longs = new long[2000];
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < ints.length; i++) {
+      // Spread the values over every digit count
+      ints[i] = random.nextInt() >> random.nextInt(32);
+      longs[i] = random.nextLong() >> random.nextInt(64);
+      sb.append(ints[i]).append(i % 3 == 0 ? "\n" : " ");
+      sb.append(longs[i]).append(i % 5 == 0 ? "\t" : "  ");
+    }
+
+    for (int bufferSize : new int[]{ 1, 7, 8, 9, 16, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(sb.toString().getBytes()), bufferSize);
+      for (int i = 0; i < ints.length; i++) {
+        assertEquals( ints[i], in.nextInt() );
+        assertEquals( longs[i], in.nextLong() );
+      }
+    }
+
+  }
+
+  @Test
+  public void testLongLinesAndStrings() throws IOException {
+
+    Random random = new Random(5);
+    List<String> lines = new ArrayList<>();
+    StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < 200; i++) {
+      StringBuilder line = new StringBuilder();
+      int length = random.nextInt(600);
+      for (int j = 0; j < length; j++)
+        line.append(random.nextInt(8) == 0 ? ' ' : (char) ('!' + random.nextInt(94)));
+      lines.add(line.toString());
+      sb.append(line).append('\n');
+    }
+
+    for (int bufferSize : new int[]{ 1, 7, 8, 9, 64, 1 << 16 }) {
+
+      InputReader in = new InputReader(new ByteArrayInputStream(sb.toString().getBytes()), bufferSize);
+      for (String line : lines) assertEquals(line, in.nextLine());
+      assertNull(in.nextLine());
+
+      in = new InputReader(new ByteArrayInputStream(sb.toString().getBytes()), bufferSize);
+      for (String line : lines)
+        for (String str : line.split(" "))
+          if (!str.isEmpty()) assertEquals(str, in.nextString());
+      assertNull(in.nextString());
+
+    }
+
+  }
+
+  @Test
+  public void testLongRunsOfJunk() throws IOException {
 
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      for (int j = 0; j < i; j++) sb.append(j % 2 == 0 ? ' ' : '\n');
+      sb.append(i).append("\t\t\t\t\t\t\t\t\t\tx").append(i);
+    }
+
+    InputReader in = getReader(sb.toString());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, in.nextInt());
+      assertEquals("x" + i, in.nextString());
+    }
+    assertNull(in.nextString());
+
+  }
+
+  @Test
+  public void testStreams() throws IOException {
+
+    assertArrayEquals( new int[]{1, -2, 3}, getReader(" 1 -2\n 3 \n").ints().toArray() );
+    assertArrayEquals( new long[]{9876543210L, -5L}, getReader("9876543210 -5").longs().toArray() );
+    assertArrayEquals( new double[]{1.5, -0.25}, getReader("1.5\n-0.25\n\n").doubles().toArray(), 0.0 );
+    assertEquals( 0, getReader("  \n ").ints().count() );
+
+    // Streams pick up where the reader left off
+    InputReader in = getReader("header 10 20 30");
+    assertEquals("header", in.nextString());
+    assertEquals(60, in.ints().sum());
+
+  }
+
+  @Test
+  public void testParallelStreams() throws IOException {
+
+    Random random = new Random(9);
+    int[] ints = new int[600000];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = random.nextInt();
+      sb.append(ints[i]).append(i % 10 == 9 ? "\n" : " ");
+    }
+
+    // Large enough for the memory mapped file to be split several times
+    InputReader in = getMappedReader(sb.toString());
+    assertArrayEquals(ints, in.ints().parallel().toArray());
+
+    in = getMappedReader(sb.toString());
+    assertEquals(Arrays.stream(ints).asLongStream().sum(), in.longs().parallel().sum());
+
+    // Sources which cannot be split in place are split into batches
+    in = getReader(sb.toString());
+    assertArrayEquals(ints, in.ints().parallel().toArray());
+
+  }
+
+  @Test
+  public void testParallelStreamsCsv() throws IOException {
+
+    // Quoted fields with spaces and separators must not be cut apart by a split
+    Random random = new Random(9);
+    int[] ints = new int[600000];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = random.nextInt(1000);
+      sb.append(i % 3 == 0 ? "\" " + ints[i] + " \"" : String.valueOf(ints[i])).append(i % 10 == 9 ? "\n" : ",");
+    }
+
+    InputReader in = getMappedReader(sb.toString());
+    in.enableCsv(",");
+    assertEquals(Arrays.stream(ints).asLongStream().sum(), in.ints().parallel().asLongStream().sum());
+
+    in = getMappedReader(sb.toString());
+    in.enableCsv(",");
+    assertArrayEquals(ints, in.ints().parallel().toArray());
+
+  }
+
+  @Test
+  public void testStreamsCsvEmptyField() throws IOException {
+
+    InputReader in = getReader("1,\" 2 \"\n3\n");
+    in.enableCsv(",");
+    assertArrayEquals(new int[] {1, 2, 3}, in.ints().toArray());
+
+    // The empty field after the last separator is a value, as it is for readInts
+    in = getReader("1,2,\n");
+    in.enableCsv(",");
+    try {
+      in.longs().toArray();
+      fail();
+    } catch (NumberFormatException e) {
+      // expected
+    }
+
+  }
+
+  @Test
+  public void testNumberNextToNonAscii() throws IOException {
+    // Bytes >= 0x80 are part of the token, like the SWAR scans treat them, so a number
+    // running into UTF-8 text is not cut short, and UTF-8 text before a number is not
+    // skipped as junk. Like a letter, such a byte is not a digit and is rejected.
+    for (String s : new String[] {"12\u00e9 7\n", "\u00e95 7\n", "123456789012\u00e9 7\n"}) {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      for (int bufferSize = 1; bufferSize <= bytes.length + 1; bufferSize++) {
+        for (int method = 0; method < 4; method++) {
+          InputReader in = new InputReader(new ByteArrayInputStream(bytes), bufferSize);
+          try {
+            if (method == 0) in.nextInt();
+            else if (method == 1) in.nextLong();
+            else if (method == 2) in.readInts(new int[2]);
+            else in.readLongs(new long[2]);
+            fail();
+          } catch (ArrayIndexOutOfBoundsException e) {}
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReadInts() throws IOException {
+
+    Random random = new Random(10);
+    int[] ints = new int[5000];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = random.nextInt() >> random.nextInt(32);
+      sb.append(ints[i]).append(i % 7 == 0 ? " \n  " : " ");
+    }
+
+    for (int bufferSize : new int[]{ 1, 5, 8, 13, 64, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(sb.toString().getBytes()), bufferSize);
+      int[] dst = new int[ints.length + 10];
+      assertEquals(100, in.readInts(dst, 0, 100));
+      assertEquals(ints.length - 100, in.readInts(dst, 110, ints.length - 100));
+      for (int i = 0; i < ints.length; i++)
+        assertEquals(ints[i], dst[i < 100 ? i : i + 10]);
+      assertEquals(0, in.readInts(dst, 0, 10));
+    }
+
+  }
+
+  @Test
+  public void testReadLongs() throws IOException {
+
+    Random random = new Random(11);
+    long[] longs = new long[5000];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = random.nextLong() >> random.nextInt(64);
+      sb.append(longs[i]).append(i % 5 == 0 ? "\t" : "\n");
+    }
+
+    for (int bufferSize : new int[]{ 1, 5, 8, 13, 64, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(sb.toString().getBytes()), bufferSize);
+      long[] dst = new long[64];
+      for (int read = 0; read < longs.length;) {
+        int n = in.readLongs(dst);
+        for (int i = 0; i < n; i++) assertEquals(longs[read + i], dst[i]);
+        read += n;
+      }
+      assertEquals(0, in.readLongs(dst, 3, 10));
+    }
+
+  }
+
+  @Test
+  public void testReadDoublesAndBytes() throws IOException {
+
+    InputReader in = getReader(" 1.5 -2.25\n3 -128 127 0 ");
+    double[] doubles = new double[5];
+    assertEquals(3, in.readDoubles(doubles, 1, 3));
+    assertArrayEquals(new double[]{0, 1.5, -2.25, 3, 0}, doubles, 0.0);
+
+    byte[] bytes = new byte[4];
+    assertEquals(3, in.readBytes(bytes));
+    assertArrayEquals(new byte[]{-128, 127, 0, 0}, bytes);
+
+  }
+
+  @Test(expected=IndexOutOfBoundsException.class)
+  public void testReadIntsOutOfBounds() throws IOException {
+    getReader("1 2 3").readInts(new int[2], 1, 2);
+  }
+
+  @Test(expected=IOException.class)
+  public void testNextIntArrayTooShort() throws IOException {
+    getReader("1 2 3").nextIntArray(4);
+  }
+
+  @Test
+  public void testNextMatrices() throws IOException {
+
+    InputReader in = getReader("1 2 3\n4 5 6\n7 8\n9 10\n");
+    assertArrayEquals(new int[][]{{1, 2, 3}, {4, 5, 6}}, in.nextIntMatrix(2, 3));
+    long[][] matrix = in.nextLongMatrix1(2, 2);
+    assertArrayEquals(new long[]{0, 7, 8}, matrix[1]);
+    assertArrayEquals(new long[]{0, 9, 10}, matrix[2]);
+
+  }
+
+  @Test
+  public void testNextDoubleExact() throws IOException {
+
+    Random random = new Random(12);
+    double[] doubles = new double[20000];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < doubles.length; i++) {
+      switch (i % 4) {
+        case 0:  doubles[i] = Double.longBitsToDouble(random.nextLong()); break;
+        case 1:  doubles[i] = random.nextDouble(); break;
+        case 2:  doubles[i] = random.nextInt() / 1000.0; break;
+        default: doubles[i] = Math.scalb(random.nextDouble(), random.nextInt(2100) - 1074);
+      }
+      // Write some values with every digit of their exact binary value
+      String str = i % 9 == 0 && !Double.isNaN(doubles[i]) && !Double.isInfinite(doubles[i]) ?
+        new java.math.BigDecimal(doubles[i]).toString() : Double.toString(doubles[i]);
+      sb.append(str).append(i % 3 == 0 ? "\n" : " ");
+    }
+
+    for (int bufferSize : new int[]{ 1, 7, 8, 50, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(sb.toString().getBytes()), bufferSize);
+      for (int i = 0; i < doubles.length; i++)
+        assertEquals(Double.doubleToLongBits(doubles[i]), Double.doubleToLongBits(in.nextDouble()));
+    }
+
+  }
+
+  @Test
+  public void testNextDoubleSyntax() throws IOException {
+
+    String s = "+1.5 1e10 -2.5E-3 1E+2 .25 7. -0 NaN Infinity -Infinity +Infinity 1e400 1e-400 " +
+               "4.9e-324 2.2250738585072014E-308 0.1 9007199254740993 " +
+               "1.000000000000000000000000000001 123456789012345678901234567890 1d 0x1p3";
+    InputReader in = getReader(s);
+    assertEquals(1.5, in.nextDouble(), 0.0);
+    assertEquals(1e10, in.nextDouble(), 0.0);
+    assertEquals(-2.5e-3, in.nextDouble(), 0.0);
+    assertEquals(100, in.nextDouble(), 0.0);
+    assertEquals(0.25, in.nextDouble(), 0.0);
+    assertEquals(7, in.nextDouble(), 0.0);
+    assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(in.nextDouble()));
+    assertTrue(Double.isNaN(in.nextDouble()));
+    assertEquals(Double.POSITIVE_INFINITY, in.nextDouble(), 0.0);
+    assertEquals(Double.NEGATIVE_INFINITY, in.nextDouble(), 0.0);
+    assertEquals(Double.POSITIVE_INFINITY, in.nextDouble(), 0.0);
+    assertEquals(Double.POSITIVE_INFINITY, in.nextDouble(), 0.0);
+    assertEquals(0.0, in.nextDouble(), 0.0);
+    assertEquals(Double.MIN_VALUE, in.nextDouble(), 0.0);
+    assertEquals(Double.MIN_NORMAL, in.nextDouble(), 0.0);
+    assertEquals(0.1, in.nextDouble(), 0.0);
+    assertEquals(9007199254740992.0, in.nextDouble(), 0.0);
+    assertEquals(1.0, in.nextDouble(), 0.0);
+    assertEquals(1.2345678901234568E29, in.nextDouble(), 0.0);
+    assertEquals(1.0, in.nextDouble(), 0.0);
+    assertEquals(8.0, in.nextDouble(), 0.0);
+
+  }
+
+  @Test(expected=NumberFormatException.class)
+  public void testNextDoubleNotANumber() throws IOException {
+    getReader("1.2.3").nextDouble();
+  }
+
+  @Test
+  public void testNextFloat() throws IOException {
+
+    Random random = new Random(13);
+    float[] floats = new float[20000];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < floats.length; i++) {
+      floats[i] = i % 2 == 0 ? Float.intBitsToFloat(random.nextInt()) : random.nextFloat() * random.nextInt(1000);
+      sb.append(floats[i]).append(' ');
+    }
+    // Doubles which fall exactly half way between two floats must round to even
+    sb.append("1.000000059604644775390625 1.00000017881393432617187500");
+
+    InputReader in = getReader(sb.toString());
+    for (int i = 0; i < floats.length; i++)
+      assertEquals(Float.floatToIntBits(floats[i]), Float.floatToIntBits(in.nextFloat()));
+    assertEquals(1.0f, in.nextFloat(), 0.0f);
+    assertEquals(Math.nextUp(Math.nextUp(1.0f)), in.nextFloat(), 0.0f);
+
+  }
+
+  @Test
+  public void testNextTokenSlice() throws IOException {
+
+    String s = "  GET /index.html 200\n\tPOST /a-much-longer-path/which/crosses/refills 404 \n";
+    String[] tokens = s.trim().split("\\s+");
+    for (int bufferSize : new int[]{ 1, 3, 8, 16, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+      ByteSlice token = new ByteSlice();
+      for (String expected : tokens) {
+        assertTrue(in.nextToken(token));
+        assertTrue(token.contentEquals(expected));
+        assertEquals(expected.hashCode(), token.hashCode());
+      }
+      assertFalse(in.nextToken(token));
+      assertTrue(token.contentEquals(tokens[tokens.length - 1]));
+    }
+
+    InputReader in = getReader("12 -34 5.5 word 99");
+    ByteSlice token = new ByteSlice();
+    assertTrue(in.nextToken(token));
+    assertEquals(12, token.parseInt());
+    assertTrue(in.nextToken(token));
+    assertEquals(-34L, token.parseLong());
+    assertTrue(in.nextToken(token));
+    assertEquals(5.5, token.parseDouble(), 0.0);
+    assertTrue(in.nextToken(token));
+    assertEquals("word", token.toString());
+    assertEquals(99, in.nextInt());
+
+  }
+
+  @Test
+  public void testNextLineSlice() throws IOException {
+
+    String s = "first line\n\nthird line is a little bit longer\nlast";
+    for (int bufferSize : new int[]{ 1, 3, 8, 16, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+      ByteSlice line = new ByteSlice();
+      for (String expected : s.split("\n")) {
+        assertTrue(in.nextLine(line));
+        assertEquals(expected, line.toString());
+      }
+      assertFalse(in.nextLine(line));
+    }
+
+  }
+
+  @Test
+  public void testUtf8Strings() throws IOException {
+
+    String[] words = { "caf\u00e9", "na\u00efve", "\u4f60\u597d", "\u0416\u0443\u043a", "emoji\ud83d\ude00!", "plain" };
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++) sb.append(words[i % words.length]).append(i % 7 == 0 ? "\n" : " ");
+    byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+    // Small buffers split multi byte characters across refills
+    for (int bufferSize : new int[]{ 1, 2, 3, 5, 8, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(bytes), bufferSize);
+      for (int i = 0; i < 200; i++) assertEquals(words[i % words.length], in.nextString());
+      assertNull(in.nextString());
+    }
+
+  }
+
+  @Test
+  public void testUtf8Lines() throws IOException {
+
+    String s = "\u00fcber gr\u00f6\u00dfe\n\u65e5\u672c\u8a9e \u306e \u884c\n\nascii line\n\ud83d\ude80 last";
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    for (int bufferSize : new int[]{ 1, 2, 3, 5, 8, 1 << 16 }) {
+      InputReader in = new InputReader(new ByteArrayInputStream(bytes), bufferSize);
+      for (String line : s.split("\n")) assertEquals(line, in.nextLine());
+      assertNull(in.nextLine());
+    }
+
+  }
+
+  @Test
+  public void testMalformedUtf8() throws IOException {
+
+    byte[] bytes = { 'a', (byte) 0xff, 'b', ' ', (byte) 0xc3, ' ', 'c' };
+    InputReader in = new InputReader(new ByteArrayInputStream(bytes));
+    assertEquals("a\ufffdb", in.nextString());
+    assertEquals("\ufffd", in.nextString());
+    assertEquals("c", in.nextString());
+
+  }
+
+  @Test
+  public void testUtf8TokenSlice() throws IOException {
+
+    byte[] bytes = "na\u00efve caf\u00e9".getBytes(StandardCharsets.UTF_8);
+    InputReader in = new InputReader(new ByteArrayInputStream(bytes), 3);
+    ByteSlice token = new ByteSlice();
+    assertTrue(in.nextToken(token));
+    assertEquals("na\u00efve", token.toStringUtf8());
+    assertEquals(6, token.length());
+    assertTrue(in.nextToken(token));
+    assertEquals("caf\u00e9", token.toStringUtf8());
+    assertFalse(in.nextToken(token));
+
+  }
+
+  // A stream which hands out at most a few bytes per read, like a slow pipe
+  private static InputStream trickle(byte[] bytes, int chunk) {
+    return new ByteArrayInputStream(bytes) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, chunk));
+      }
+    };
+  }
+
+  @Test
+  public void testPrefetch() throws IOException {
+
+    Random random = new Random(14);
+    StringBuilder sb = new StringBuilder();
+    int[] ints = new int[20000];
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = random.nextInt();
+      sb.append(ints[i]).append(i % 10 == 9 ? "\n" : " ");
+    }
+    sb.append("last line");
+    byte[] bytes = sb.toString().getBytes();
+
+    for (int bufferSize : new int[]{ 1, 7, 64, 1 << 16 }) {
+      for (int buffers : new int[]{ 2, 3, 8 }) {
+        InputReader in = new InputReader(trickle(bytes, 5 + random.nextInt(100)), bufferSize);
+        in.enablePrefetch(buffers);
+        for (int i = 0; i < ints.length; i++) assertEquals(ints[i], in.nextInt());
+        assertEquals("last line", in.nextLine());
+        assertNull(in.nextLine());
+        assertNull(in.nextString());
+        in.close();
+      }
+    }
+
+  }
+
+  @Test
+  public void testPrefetchAfterReading() throws IOException {
+
+    InputReader in = new InputReader(trickle("1 2 3 4 5 6".getBytes(), 2), 4);
+    assertEquals(1, in.nextInt());
+    in.enablePrefetch(2);
+    assertArrayEquals(new int[]{2, 3, 4, 5, 6}, in.nextIntArray(5));
+
+  }
+
+  @Test
+  public void testPrefetchFailure() throws IOException {
+
+    InputStream failing = new InputStream() {
+      int reads = 0;
+      @Override
+      public int read() throws IOException { throw new IOException(); }
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (reads++ > 0) throw new IOException("broken pipe");
+        b[off] = '7'; b[off + 1] = ' ';
+        return 2;
+      }
+    };
+    InputReader in = new InputReader(failing, 16);
+    in.enablePrefetch(2);
+    assertEquals(7, in.nextInt());
+    try {
+      in.nextInt();
+      fail();
+    } catch (IOException e) {
+      assertEquals("broken pipe", e.getCause().getMessage());
+    }
+
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testPrefetchOneBuffer() {
+    new InputReader(new ByteArrayInputStream(new byte[0])).enablePrefetch(1);
+  }
+
+  @Test(expected=IllegalStateException.class)
+  public void testPrefetchTwice() {
+    InputReader in = new InputReader(new ByteArrayInputStream(new byte[0]));
+    in.enablePrefetch(2);
+    in.enablePrefetch(2);
+  }
+
+  // Reads a generated corpus with the InputReader and checks every token against the JDK
+  static void checkCorpus(DataGenerator.Corpus corpus, DataGenerator.Width width, boolean crlf, int bufferSize) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    InputStream generator = new DataGenerator(corpus, width, 1 << 21, 42, crlf);
+    for (int b; (b = generator.read()) != -1;) bytes.write(b);
+    String text = new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+
+    InputReader in = new InputReader(new ByteArrayInputStream(bytes.toByteArray()), bufferSize);
+    for (String token : text.trim().split("\\s+")) {
+      switch (corpus) {
+        case INTS: assertEquals(Integer.parseInt(token), in.nextInt()); break;
+        case LONGS: assertEquals(Long.parseLong(token), in.nextLong()); break;
+        case DOUBLES:
+          assertEquals(token, Double.doubleToLongBits(Double.parseDouble(token)), Double.doubleToLongBits(in.nextDouble()));
+          break;
+        default: assertEquals(token, in.nextString());
+      }
+    }
+    assertNull(in.nextString());
+
+    in = new InputReader(new ByteArrayInputStream(bytes.toByteArray()), bufferSize);
+    String[] lines = text.split("\n");
+    for (String line : lines) assertEquals(line, in.nextLine());
+    assertNull(in.nextLine());
+  }
+
+  // A stream which hands out chunks of random sizes and remembers the largest read asked of it
+  static class ChunkedStream extends ByteArrayInputStream {
+    final Random random;
+    final int maxChunk;
+    int lastLen;
+    ChunkedStream(byte[] bytes, int maxChunk, long seed) {
+      super(bytes);
+      this.maxChunk = maxChunk;
+      this.random = new Random(seed);
+    }
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      lastLen = len;
+      return super.read(b, off, Math.min(len, 1 + random.nextInt(maxChunk)));
+    }
+  }
+
+  @Test
+  public void testAdaptiveBuffering() throws IOException {
+
+    byte[] bytes = new byte[1 << 20];
+    int length = new DataGenerator(DataGenerator.Corpus.MIXED, bytes.length / 2).read(bytes);
+    String[] tokens = new String(bytes, 0, length, StandardCharsets.US_ASCII).trim().split("\\s+");
+    bytes = Arrays.copyOf(bytes, length);
+
+    Random random = new Random(18);
+    for (int trial = 0; trial < 50; trial++) {
+      int min = 1 + random.nextInt(64), max = min + random.nextInt(4096);
+      InputReader in = new InputReader(new ChunkedStream(bytes, 1 + random.nextInt(8192), trial), 1 + random.nextInt(256));
+      in.enableAdaptiveBuffering(min, max);
+      for (String token : tokens) assertEquals(token, in.nextString());
+      assertNull(in.nextString());
+    }
+
+  }
+
+  @Test
+  public void testAdaptiveBufferingGrows() throws IOException {
+
+    // Every refill fills the whole buffer, like a local file
+    ChunkedStream stream = new ChunkedStream(new byte[1 << 22], Integer.MAX_VALUE, 0);
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = new InputReader(stream, 1 << 10);
+    in.enableStats(stats);
+    in.enableAdaptiveBuffering(1 << 10, 1 << 16);
+    while (in.nextLine(new ByteSlice()));
+
+    assertEquals(1 << 16, stream.lastLen);
+    assertEquals(6, stats.getBufferResizes());
+
+  }
+
+  @Test
+  public void testAdaptiveBufferingShrinks() throws IOException {
+
+    // Every refill returns at most 100 bytes, like a socket
+    ChunkedStream stream = new ChunkedStream(new byte[1 << 16], 100, 0);
+    InputReader in = new InputReader(stream, 1 << 16);
+    in.enableAdaptiveBuffering(256, 1 << 16);
+    while (in.nextLine(new ByteSlice()));
+    assertEquals(256, stream.lastLen);
+
+    // The buffer is brought within the bounds at the next refill
+    stream = new ChunkedStream(new byte[100], 100, 0);
+    in = new InputReader(stream, 1 << 16);
+    in.enableAdaptiveBuffering(16, 32);
+    while (in.nextLine(new ByteSlice()));
+    assertEquals(32, stream.lastLen);
+
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testAdaptiveBufferingBounds() {
+    new InputReader(new ByteArrayInputStream(new byte[0])).enableAdaptiveBuffering(64, 32);
+  }
+
+  static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  // A gzip member with every optional header field, including the header CRC
+  static byte[] gzipWithHeaderFields(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(new byte[]{ 0x1f, (byte) 0x8b, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, 3 });
+    out.write(new byte[]{ 3, 0, 'a', 'b', 'c' });
+    out.write("name.txt\0comment\0".getBytes());
+    CRC32 headerCrc = new CRC32();
+    headerCrc.update(out.toByteArray());
+    out.write((int) headerCrc.getValue() & 0xff);
+    out.write((int) headerCrc.getValue() >>> 8 & 0xff);
+
+    ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+    try (DeflaterOutputStream deflater = new DeflaterOutputStream(deflated, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+      deflater.write(bytes);
+    }
+    out.write(deflated.toByteArray());
+
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    for (long v : new long[]{ crc.getValue(), bytes.length })
+      for (int i = 0; i < 4; i++) out.write((int) (v >>> (8 * i)) & 0xff);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testGzip() throws IOException {
+
+    byte[] bytes = new byte[1 << 19];
+    int length = new DataGenerator(DataGenerator.Corpus.MIXED, bytes.length / 2).read(bytes);
+    bytes = Arrays.copyOf(bytes, length);
+    String[] tokens = new String(bytes, StandardCharsets.US_ASCII).trim().split("\\s+");
+
+    // Two members, one of them with every optional header field, and some padding after them
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(gzip(Arrays.copyOf(bytes, length / 3)));
+    out.write(gzipWithHeaderFields(Arrays.copyOfRange(bytes, length / 3, length)));
+    out.write(new byte[100]);
+    byte[] compressed = out.toByteArray();
+
+    Random random = new Random(19);
+    for (int trial = 0; trial < 20; trial++) {
+      InputStream source = trial % 2 == 0 ? new ByteArrayInputStream(compressed) : trickle(compressed, 1 + random.nextInt(5000));
+      InputReader in = new InputReader(source, 1 + random.nextInt(100000));
+      in.enableGzip();
+      if (trial % 4 == 1) in.enablePrefetch(3);
+      for (String token : tokens) assertEquals(token, in.nextString());
+      assertNull(in.nextString());
+      in.close();
+    }
+
+  }
+
+  @Test
+  public void testDeflate() throws IOException {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+      for (int i = 0; i < 100000; i++) deflater.write((i + "\n").getBytes());
+    }
+    InputReader in = new InputReader(new ByteArrayInputStream(out.toByteArray()), 1000);
+    in.enableDeflate();
+    for (int i = 0; i < 100000; i++) assertEquals(i, in.nextInt());
+    assertNull(in.nextLine());
+
+  }
+
+  @Test
+  public void testGzipCorrupt() throws IOException {
+
+    byte[] compressed = gzip("1 2 3 4 5".getBytes());
+
+    // The CRC in the trailer does not match
+    byte[] badCrc = compressed.clone();
+    badCrc[badCrc.length - 8] ^= 1;
+    InputReader in = new InputReader(new ByteArrayInputStream(badCrc));
+    in.enableGzip();
+    try {
+      while (in.nextString() != null);
+      fail();
+    } catch (ZipException e) {}
+
+    // Cut off in the middle of the trailer
+    in = new InputReader(new ByteArrayInputStream(Arrays.copyOf(compressed, compressed.length - 3)));
+    in.enableGzip();
+    try {
+      while (in.nextString() != null);
+      fail();
+    } catch (EOFException e) {}
+
+    // Not gzip at all
+    in = new InputReader(new ByteArrayInputStream("1 2 3 4 5".getBytes()));
+    in.enableGzip();
+    try {
+      while (in.nextString() != null);
+      fail();
+    } catch (ZipException e) {}
+
+  }
+
+  @Test(expected=IllegalStateException.class)
+  public void testGzipAfterReading() throws IOException {
+    InputReader in = new InputReader(new ByteArrayInputStream("1 2".getBytes()));
+    in.nextInt();
+    in.enableGzip();
+  }
+
+  @Test
+  public void testGeneratedCorpora() throws IOException {
+    for (DataGenerator.Corpus corpus : DataGenerator.Corpus.values()) {
+      checkCorpus(corpus, DataGenerator.Width.MIXED, false, 1 << 16);
+      checkCorpus(corpus, DataGenerator.Width.MIXED, true, 1000);
+      checkCorpus(corpus, DataGenerator.Width.SHORT, false, 1000);
+      checkCorpus(corpus, DataGenerator.Width.LONG, true, 1000);
+    }
+  }
+
+  @Test
+  public void testDataGeneratorIsDeterministic() throws IOException {
+    byte[] a = new byte[1 << 16], b = new byte[1 << 16];
+    new DataGenerator(DataGenerator.Corpus.MIXED, a.length).read(a);
+    new DataGenerator(DataGenerator.Corpus.MIXED, b.length).read(b);
+    assertArrayEquals(a, b);
+  }
+
+  // Reads the input with a Flight Recording of the InputReader's events running
+  static List<RecordedEvent> record(String input, int bufferSize, ReaderAction action) throws IOException {
+    Path file = Files.createTempFile("fastjavaio", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("com.williamfiset.fastjavaio.Refill");
+      recording.enable("com.williamfiset.fastjavaio.LongToken");
+      recording.enable("com.williamfiset.fastjavaio.SlowNumber");
+      recording.start();
+      action.read(new InputReader(new ByteArrayInputStream(input.getBytes()), bufferSize));
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  interface ReaderAction {
+    void read(InputReader in) throws IOException;
+  }
+
+  static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> matching = new ArrayList<>();
+    for (RecordedEvent event : events)
+      if (event.getEventType().getName().equals("com.williamfiset.fastjavaio." + name)) matching.add(event);
+    return matching;
+  }
+
+  @Test
+  public void testFlightRecorderEvents() throws IOException {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) sb.append('x');
+    String slow = "2.47032822920623272088284396434110686182529901307162382212792841250337753635104375932649918180817996189898282347722858865463328355177969898199387398005390939063150356595155702263922908583924491051844359318028499365361525003193704576782492193656236698636584807570015857692699037063119282795585513329278343384093519780155312465972635795746227664652728272200563740064854999770965994704540208281662262378573934507363390079677619305775067401763246736009689513405355374585166611342237666786041621596804619144672918403005300575308490487653917113865916462395249126236538818796362393732804238910186723484976682350898633885879256283027559956575244555072551893136908362547791869486679949683240497058210285131854513962138377228261454376934125320985913276672363281255e-324";
+
+    List<RecordedEvent> events = record("1 2 3 " + sb + "\n" + slow + " 5", 16, in -> {
+      assertEquals(1, in.nextInt());
+      in.nextInt();
+      in.nextInt();
+      assertEquals(sb.toString(), in.nextLine());
+      assertEquals(Double.MIN_VALUE, in.nextDouble(), 0);
+      assertEquals(5, in.nextInt());
+    });
+
+    List<RecordedEvent> refills = events(events, "Refill");
+    assertFalse(refills.isEmpty());
+    assertEquals(16, refills.get(0).getInt("bytes"));
+    assertEquals(16, refills.get(0).getInt("bufferSize"));
+
+    List<RecordedEvent> longTokens = events(events, "LongToken");
+    assertFalse(longTokens.isEmpty());
+    assertTrue(longTokens.get(0).getBoolean("line"));
+
+    List<RecordedEvent> slowNumbers = events(events, "SlowNumber");
+    assertEquals(1, slowNumbers.size());
+    assertTrue(slowNumbers.get(0).getString("token").startsWith("2.4703282292062327"));
+    assertTrue(slowNumbers.get(0).getString("token").endsWith("..."));
+
+  }
+
+  @Test
+  public void testFlightRecorderRateLimit() throws IOException {
+
+    // One refill per byte makes far more refills than may be recorded in a second
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20000; i++) sb.append(i % 10).append(' ');
+    List<RecordedEvent> refills = events(record(sb.toString(), 1, in -> {
+      for (int i = 0; i < 20000; i++) in.nextInt();
+    }), "Refill");
+
+    assertFalse(refills.isEmpty());
+    long recorded = refills.size(), skipped = 0;
+    for (RecordedEvent event : refills) skipped += event.getLong("skipped");
+    assertTrue(recorded + skipped <= 40001);
+    assertTrue(recorded < 40001);
+
+  }
+
+  private static InputReader csvReader(String s, String separators, int bufferSize) {
+    InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+    in.enableCsv(separators);
+    return in;
+  }
+
+  // Reads every record of the input as a list of fields
+  private static List<List<String>> records(InputReader in) throws IOException {
+    List<List<String>> records = new ArrayList<>();
+    List<String> record = new ArrayList<>();
+    String field;
+    while ((field = in.nextString()) != null) {
+      record.add(field);
+      if (in.endOfRecord()) {
+        records.add(record);
+        record = new ArrayList<>();
+      }
+    }
+    assertTrue(record.isEmpty());
+    return records;
+  }
+
+  @Test
+  public void testCsv() throws IOException {
+
+    String csv = "name,age,city\r\n" +
+                 "\"Smith, John\",42,\"New\nYork\"\r\n" +
+                 "\"say \"\"hi\"\"\",,\n" +
+                 ",\"\",x\n" +
+                 "last, row ,";
+    List<List<String>> expected = Arrays.asList(
+      Arrays.asList("name", "age", "city"),
+      Arrays.asList("Smith, John", "42", "New\nYork"),
+      Arrays.asList("say \"hi\"", "", ""),
+      Arrays.asList("", "", "x"),
+      Arrays.asList("last", " row ", ""));
+
+    // Small buffers make fields cross refills and take the slow path
+    for (int bufferSize = 1; bufferSize <= csv.length() + 1; bufferSize++)
+      assertEquals(expected, records(csvReader(csv, ",", bufferSize)));
+
+  }
+
+  @Test
+  public void testTsv() throws IOException {
+    InputReader in = csvReader("a b\t1\t\t2.5\n\tc d\n", "\t", 8);
+    assertEquals(Arrays.asList(Arrays.asList("a b", "1", "", "2.5"), Arrays.asList("", "c d")), records(in));
+  }
+
+  @Test
+  public void testCsvMultipleSeparators() throws IOException {
+    // More than four separators scan the buffer through the byte class table
+    InputReader in = csvReader("1,2;3|4:5!6\n", ",;|:!", 64);
+    int[] values = new int[10];
+    assertEquals(6, in.readInts(values));
+    assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6}, Arrays.copyOf(values, 6));
+  }
+
+  @Test
+  public void testCsvNumbers() throws IOException {
+
+    for (int bufferSize = 1; bufferSize <= 64; bufferSize++) {
+      InputReader in = csvReader("1, -22 ,+333\r\n9000000000,\"1.5\", 2.5e3\n-7\n", ",", bufferSize);
+      assertEquals(1, in.nextInt());
+      assertEquals(-22, in.nextInt());
+      assertEquals(333, in.nextInt());
+      assertTrue(in.endOfRecord());
+      assertEquals(9000000000L, in.nextLong());
+      assertFalse(in.endOfRecord());
+      assertEquals(1.5, in.nextDouble(), 0);
+      assertEquals(2500f, in.nextFloat(), 0);
+      assertTrue(in.endOfRecord());
+      assertEquals(-7, in.nextByte());
+      try {
+        in.nextInt();
+        fail();
+      } catch (IOException e) {}
+    }
+
+  }
+
+  @Test
+  public void testCsvArrays() throws IOException {
+
+    for (int bufferSize = 1; bufferSize <= 32; bufferSize++) {
+      InputReader in = csvReader("1,2,3\n4,5,6\n", ",", bufferSize);
+      int[] ints = new int[4];
+      assertEquals(4, in.readInts(ints));
+      assertArrayEquals(new int[] {1, 2, 3, 4}, ints);
+      assertFalse(in.endOfRecord());
+      long[] longs = new long[4];
+      assertEquals(2, in.readLongs(longs));
+      assertArrayEquals(new long[] {5, 6, 0, 0}, longs);
+    }
+
+    InputReader in = csvReader("0.5,1.5\n-1,2", ",", 4);
+    double[] doubles = new double[2];
+    assertEquals(2, in.readDoubles(doubles));
+    assertArrayEquals(new double[] {0.5, 1.5}, doubles, 0);
+    byte[] bytes = new byte[3];
+    assertEquals(2, in.readBytes(bytes));
+    assertArrayEquals(new byte[] {-1, 2, 0}, bytes);
+
+  }
+
+  @Test(expected=NumberFormatException.class)
+  public void testCsvEmptyNumber() throws IOException {
+    InputReader in = csvReader("1,,3\n", ",", 64);
+    in.nextInt();
+    in.nextInt();
+  }
+
+  @Test
+  public void testCsvTokens() throws IOException {
+
+    InputReader in = csvReader("ab,\"c\"\"d\",\n", ",", 3);
+    in.enableStringCache(new StringCache(16));
+    ByteSlice slice = new ByteSlice();
+    assertTrue(in.nextToken(slice));
+    assertEquals("ab", slice.toString());
+    assertTrue(in.nextToken(slice));
+    assertEquals("c\"d", slice.toString());
+    assertTrue(in.nextToken(slice));
+    assertEquals(0, slice.length());
+    assertTrue(in.endOfRecord());
+    assertFalse(in.nextToken(slice));
+
+    // The string cache still hands back one String per distinct field
+    in = csvReader("x,y,x\n", ",", 64);
+    in.enableStringCache(new StringCache(16));
+    String x = in.nextString();
+    in.nextString();
+    assertSame(x, in.nextString());
+
+  }
+
+  @Test
+  public void testCsvHeader() throws IOException {
+    InputReader in = csvReader("id,value\n1,2\n", ",", 64);
+    assertEquals("id,value", in.nextLine());
+    assertEquals(1, in.nextInt());
+    assertEquals(2, in.nextInt());
+    assertNull(in.nextString());
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testCsvNewLineSeparator() {
+    new InputReader(new ByteArrayInputStream(new byte[0])).enableCsv(",\n");
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testCsvQuoteSeparator() {
+    new InputReader(new ByteArrayInputStream(new byte[0])).enableCsv("\"");
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testCsvNoSeparators() {
+    new InputReader(new ByteArrayInputStream(new byte[0])).enableCsv("");
+  }
+
+}
@@ -0,0 +1,225 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.ByteSlice;
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.InputReaderStats;
+import com.williamfiset.fastjavaio.StringCache;
+import org.junit.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TestInputReaderStats {
+
+  private static InputReader getReader(String s, int bufferSize, InputReaderStats stats) {
+    InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+    in.enableStats(stats);
+    return in;
+  }
+
+  @Test
+  public void testValueCounts() throws IOException {
+
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader("7 -8 9000000000 1.5 2.5 abc\nfirst line\nsecond line\nthird line\ntoken 5", 8, stats);
+
+    in.nextByte();
+    in.nextInt();
+    in.nextLong();
+    in.nextDouble();
+    in.nextFloat();
+    in.nextString();
+    in.nextLine();
+    in.nextLine();
+    in.nextLine();
+    assertTrue(in.nextToken(new ByteSlice()));
+    in.nextInt();
+    assertFalse(in.nextToken(new ByteSlice()));
+
+    assertEquals(3, stats.getInts());
+    assertEquals(1, stats.getLongs());
+    assertEquals(1, stats.getDoubles());
+    assertEquals(1, stats.getFloats());
+    assertEquals(1, stats.getStrings());
+    assertEquals(3, stats.getLines());
+    assertEquals(1, stats.getTokens());
+
+  }
+
+  @Test
+  public void testArrayCounts() throws IOException {
+
+    // Small buffers make some tokens cross a refill and take the slow path
+    for (int bufferSize = 1; bufferSize <= 32; bufferSize++) {
+      InputReaderStats stats = new InputReaderStats();
+      InputReader in = getReader("1 22 333 4444 55555 -666666\n7777777 88888888 999999999 1", bufferSize, stats);
+      in.readInts(new int[4]);
+      in.readLongs(new long[10]);
+      assertEquals(4, stats.getInts());
+      assertEquals(6, stats.getLongs());
+    }
+
+  }
+
+  @Test
+  public void testReads() throws IOException {
+
+    String s = "1234567890 abcdefghijklmnopqrstuvwxyz";
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader(s, 16, stats);
+    while (in.nextString() != null);
+
+    // Two full buffers, one short read of 6 bytes and the final read at the end of the stream
+    assertEquals(s.length(), stats.getBytesRead());
+    assertEquals(4, stats.getRefills());
+    assertEquals(1, stats.getShortReads());
+    assertTrue(stats.getReadTimeNanos() >= 0);
+    assertTrue(stats.getReadTimeNanos() <= stats.getElapsedNanos());
+    assertTrue(stats.getScratchBufferGrowths() == 0);
+
+  }
+
+  @Test
+  public void testSlowStreamIsReadBound() throws IOException {
+
+    InputStream slow = new ByteArrayInputStream("1 2 3 4 5".getBytes()) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        try { Thread.sleep(20); } catch (InterruptedException e) {}
+        return super.read(b, off, Math.min(len, 2));
+      }
+    };
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = new InputReader(slow, 64);
+    in.enableStats(stats);
+    for (int i = 0; i < 5; i++) in.nextInt();
+
+    assertEquals(5, stats.getShortReads());
+    assertTrue(stats.getReadTimeFraction() > 0.5);
+
+  }
+
+  @Test
+  public void testScratchBufferGrowth() throws IOException {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) sb.append('x');
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader(sb + "\n" + sb, 10, stats);
+    in.enableStringCache(new StringCache(8));
+    assertEquals(1000, in.nextLine().length());
+    assertEquals(1000, in.nextString().length());
+
+    long growths = stats.getScratchBufferGrowths();
+    assertTrue(growths > 0);
+    assertEquals(1, stats.getLines());
+    assertEquals(1, stats.getStrings());
+
+  }
+
+  @Test
+  public void testSnapshotAndReset() throws IOException {
+
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader("1 2 3 4", 4, stats);
+    in.nextInt();
+    in.nextInt();
+
+    InputReaderStats.Snapshot snapshot = stats.snapshot();
+    long elapsed = snapshot.getElapsedNanos();
+    in.nextInt();
+    assertEquals(2, snapshot.getInts());
+    assertEquals(elapsed, snapshot.getElapsedNanos());
+    assertEquals(3, stats.getInts());
+
+    stats.reset();
+    assertEquals(0, stats.getInts());
+    assertEquals(0, stats.getBytesRead());
+    in.nextInt();
+    assertEquals(1, stats.getInts());
+    assertEquals(2, snapshot.getInts());
+    assertTrue(snapshot.toString().startsWith("Snapshot[bytesRead="));
+
+  }
+
+  @Test
+  public void testCountsSeenFromAnotherThread() throws Exception {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100000; i++) sb.append(i).append(' ');
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader(sb.toString(), 64, stats);
+
+    Thread reader = new Thread(() -> {
+      try {
+        for (int i = 0; i < 100000; i++) in.nextInt();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    reader.start();
+
+    // The counts seen while the reader runs only ever grow
+    long last = 0;
+    while (reader.isAlive()) {
+      long ints = stats.snapshot().getInts();
+      assertTrue(ints >= last && ints <= 100000);
+      last = ints;
+    }
+    reader.join();
+    assertEquals(100000, stats.getInts());
+
+  }
+
+  @Test
+  public void testDisableStats() throws IOException {
+
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader("1 2 3", 2, stats);
+    in.nextInt();
+    in.enableStats(null);
+    in.nextInt();
+    in.nextInt();
+    assertEquals(1, stats.getInts());
+
+  }
+
+  @Test
+  public void testMBean() throws Exception {
+
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader("10 20 30", 64, stats);
+    in.nextInt();
+    in.nextInt();
+
+    stats.registerMBean("test reader");
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName("com.williamfiset.fastjavaio:type=InputReader,name=\"test reader\"");
+      assertEquals(2L, server.getAttribute(name, "Ints"));
+      assertEquals(8L, server.getAttribute(name, "BytesRead"));
+      server.invoke(name, "reset", null, null);
+      assertEquals(0L, server.getAttribute(name, "Ints"));
+    } finally {
+      stats.unregisterMBean();
+    }
+    assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(
+      new ObjectName("com.williamfiset.fastjavaio:*"), null).isEmpty());
+
+  }
+
+  @Test(expected=IllegalStateException.class)
+  public void testRegisterTwice() {
+    InputReaderStats stats = new InputReaderStats();
+    stats.registerMBean("twice");
+    try {
+      stats.registerMBean("twice");
+    } finally {
+      stats.unregisterMBean();
+    }
+  }
+
+}
@@ -0,0 +1,155 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.LineIndex;
+import org.junit.*;
+import java.util.*;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+
+public class TestLineIndex {
+
+  // Write data to a temporary file which is deleted along with its index when the tests finish
+  private static Path writeFile(String data) throws IOException {
+    Path file = Files.createTempFile("fastjavaio", ".txt");
+    file.toFile().deleteOnExit();
+    file.resolveSibling(file.getFileName() + LineIndex.SUFFIX).toFile().deleteOnExit();
+    Files.write(file, data.getBytes());
+    return file;
+  }
+
+  // The offsets at which the lines of s start, found the slow way
+  private static List<Long> lineStarts(String s) {
+    List<Long> starts = new ArrayList<>();
+    if (!s.isEmpty()) starts.add(0L);
+    for (int i = 0; i < s.length() - 1; i++)
+      if (s.charAt(i) == '\n') starts.add(i + 1L);
+    return starts;
+  }
+
+  private static void checkOffsets(String s) throws IOException {
+    List<Long> starts = lineStarts(s);
+    try (LineIndex index = LineIndex.build(writeFile(s))) {
+      assertEquals(starts.size(), index.lines());
+      for (int i = 0; i < starts.size(); i++) assertEquals((long) starts.get(i), index.offset(i));
+      assertEquals(s.length(), index.offset(index.lines()));
+    }
+  }
+
+  @Test
+  public void testOffsets() throws IOException {
+
+    checkOffsets("");
+    checkOffsets("\n");
+    checkOffsets("one line");
+    checkOffsets("one line\n");
+    checkOffsets("a\n\nb\n\n\n");
+
+    // Line counts around block boundaries, with line lengths which need one to three
+    // bytes per distance
+    Random random = new Random(0);
+    for (int lines : new int[] {63, 64, 65, 128, 129, 1000}) {
+      for (int maxLength : new int[] {3, 300, 5000}) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+          int length = random.nextInt(maxLength);
+          for (int j = 0; j < length; j++) sb.append((char) ('a' + random.nextInt(26)));
+          sb.append('\n');
+        }
+        checkOffsets(sb.toString());
+      }
+    }
+
+  }
+
+  @Test
+  public void testReader() throws IOException {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) sb.append("line ").append(i).append('\n');
+    try (LineIndex index = LineIndex.build(writeFile(sb.toString()))) {
+
+      InputReader in = index.reader(500);
+      assertEquals(index.offset(500), in.position());
+      assertEquals("line 500", in.nextLine());
+      assertEquals(index.offset(501), in.position());
+      assertEquals("line", in.nextString());
+      assertEquals(501, in.nextInt());
+      in.close();
+
+      in = index.reader(998);
+      assertEquals("line 998", in.nextLine());
+      assertEquals("line 999", in.nextLine());
+      assertNull(in.nextLine());
+      in.close();
+
+      in = index.reader(63, 66);
+      assertEquals("line 63", in.nextLine());
+      assertEquals("line 64", in.nextLine());
+      assertEquals("line 65", in.nextLine());
+      assertNull(in.nextLine());
+      in.close();
+
+      in = index.reader(10, 10);
+      assertNull(in.nextLine());
+      in.close();
+
+    }
+
+  }
+
+  @Test
+  public void testReopen() throws IOException {
+
+    Path file = writeFile("a\nb\nc");
+    LineIndex.build(file).close();
+    try (LineIndex index = LineIndex.open(file)) {
+      assertEquals(3, index.lines());
+      assertEquals(4, index.offset(2));
+      InputReader in = index.reader(2);
+      assertEquals("c", in.nextLine());
+      in.close();
+    }
+
+  }
+
+  @Test(expected=IOException.class)
+  public void testStaleIndex() throws IOException {
+    Path file = writeFile("a\nb\nc\n");
+    LineIndex.build(file).close();
+    Files.write(file, "a\nb\nc\nd\n".getBytes());
+    LineIndex.open(file);
+  }
+
+  @Test(expected=IOException.class)
+  public void testStaleIndexSameSize() throws IOException {
+    Path file = writeFile("a\nb\n");
+    LineIndex.build(file).close();
+    Files.write(file, "ab\n\n".getBytes());
+    Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+    LineIndex.open(file);
+  }
+
+  @Test(expected=IOException.class)
+  public void testNotAnIndex() throws IOException {
+    LineIndex.open(writeFile("1 2 3"), writeFile("not an index at all, just some text"));
+  }
+
+  @Test(expected=IndexOutOfBoundsException.class)
+  public void testLineOutOfRange() throws IOException {
+    try (LineIndex index = LineIndex.build(writeFile("a\nb\n"))) {
+      index.offset(3);
+    }
+  }
+
+  @Test(expected=IllegalStateException.class)
+  public void testClosed() throws IOException {
+    LineIndex index = LineIndex.build(writeFile("a\nb\n"));
+    index.close();
+    index.offset(1);
+  }
+
+}
@@ -0,0 +1,211 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.OutputWriter;
+import org.junit.*;
+import java.util.*;
+import java.io.*;
+
+public class TestOutputWriter {
+
+  private ByteArrayOutputStream bytes;
+
+  // Create an output writer with an arbitrary buffer size
+  private OutputWriter getWriter() {
+    bytes = new ByteArrayOutputStream();
+    int bufferSize = 1 + (int)(Math.random() * 50);
+    return new OutputWriter(bytes, bufferSize);
+  }
+
+  private String written(OutputWriter out) throws IOException {
+    out.flush();
+    return new String(bytes.toByteArray(), "UTF-8");
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testIllegalBufferSz() {
+    new OutputWriter(0);
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testNullStream() {
+    new OutputWriter(null);
+  }
+
+  @Test
+  public void testTryWithResources() throws IOException {
+    final boolean[] closed = new boolean[1];
+    ByteArrayOutputStream stream = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    };
+    try (OutputWriter out = new OutputWriter(stream, 4)) {
+      out.println(12345);
+      out.print("abc");
+    }
+    assertEquals("12345\nabc", new String(stream.toByteArray(), "UTF-8"));
+    assertTrue(closed[0]);
+  }
+
+  @Test
+  public void testPrintInt() throws IOException {
+
+    int[] values = {0, 1, -1, 9, 10, 99, 100, -100, 12345, 888234, -888234, 
+                    1000000000, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE+1};
+    OutputWriter out = getWriter();
+    StringBuilder expected = new StringBuilder();
+
+    for (int value : values) {
+      out.print(value);
+      out.print(' ');
+      expected.append(value).append(' ');
+    }
+    assertEquals(expected.toString(), written(out));
+
+  }
+
+  @Test
+  public void testPrintLong() throws IOException {
+
+    long[] values = {0, 1, -1, 2147483648L, -2147483649L, 839475594569048L, -1111111111111L,
+                     1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE+1};
+    OutputWriter out = getWriter();
+    StringBuilder expected = new StringBuilder();
+
+    for (long value : values) {
+      out.println(value);
+      expected.append(value).append('\n');
+    }
+    assertEquals(expected.toString(), written(out));
+
+  }
+
+  @Test
+  public void testPrintDouble() throws IOException {
+
+    double[] values = {0.0, -0.0, 1.0, -1.5, 0.1, 3.141592, 0.001, 0.0001, 1234567.0, 
+                       12345678.0, 1e-5, 1e300, Double.MAX_VALUE, Double.MIN_NORMAL, 
+                       Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    OutputWriter out = getWriter();
+    StringBuilder expected = new StringBuilder();
+
+    for (double value : values) {
+      out.println(value);
+      expected.append(value).append('\n');
+    }
+    assertEquals(expected.toString(), written(out));
+
+  }
+
+  @Test
+  public void testPrintDoubleRoundTrip() throws IOException {
+
+    Random random = new Random(1);
+    OutputWriter out = getWriter();
+    double[] values = new double[10000];
+
+    for (int i = 0; i < values.length; i++) {
+      do {
+        values[i] = Double.longBitsToDouble(random.nextLong());
+      } while (Double.isNaN(values[i]));
+      out.println(values[i]);
+    }
+
+    String[] lines = written(out).split("\n");
+    assertEquals(values.length, lines.length);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(values[i], Double.parseDouble(lines[i]), 0.0);
+      // Shortest representation is never longer than what Double.toString produces
+      assertTrue(lines[i].length() <= Double.toString(values[i]).length());
+    }
+
+  }
+
+  @Test
+  public void testPrintShortestDouble() throws IOException {
+
+    OutputWriter out = getWriter();
+    out.println(1e23);
+    out.println(2e-323);
+    out.println(Double.MIN_VALUE);
+    assertEquals("1.0E23\n2.0E-323\n4.9E-324\n", written(out));
+
+  }
+
+  @Test
+  public void testPrintString() throws IOException {
+
+    OutputWriter out = getWriter();
+    out.print("hello");
+    out.print(' ');
+    out.println("world");
+    out.println("");
+    out.print("h\u00e9llo \u4e16\u754c \ud83d\ude00");
+    out.print('\u00e9');
+    out.print((String) null);
+    assertEquals("hello world\n\nh\u00e9llo \u4e16\u754c \ud83d\ude00\u00e9null", written(out));
+
+  }
+
+  @Test
+  public void testPrintLongString() throws IOException {
+
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) sb.append((char) ('a' + i % 26)).append(i % 7 == 0 ? "\u00fc" : "");
+    OutputWriter out = getWriter();
+    out.print(sb.toString());
+    assertEquals(sb.toString(), written(out));
+
+  }
+
+  @Test
+  public void testPrintArrays() throws IOException {
+
+    OutputWriter out = getWriter();
+    out.printIntArray(new int[]{1, -2, 3});
+    out.printLongArray(new long[]{4L, 5000000000L});
+    out.printDoubleArray(new double[]{0.5, -2.0});
+    out.printStringArray(new String[]{"a", "bc"});
+    out.printIntArray1(new int[]{0, 7, 8});
+    out.printIntArray(new int[0]);
+    assertEquals("1 -2 3\n4 5000000000\n0.5 -2.0\na bc\n7 8\n\n", written(out));
+
+  }
+
+  @Test
+  public void testPrintMatrices() throws IOException {
+
+    OutputWriter out = getWriter();
+    out.printIntMatrix(new int[][]{{1, 2}, {3, 4}});
+    out.printLongMatrix1(new long[][]{{0, 0, 0}, {0, 5, 6}});
+    out.printDoubleMatrix(new double[][]{{1.5}});
+    out.printStringMatrix(new String[][]{{"x", "y"}, {"z", "w"}});
+    assertEquals("1 2\n3 4\n5 6\n1.5\nx y\nz w\n", written(out));
+
+  }
+
+  @Test
+  public void testRoundTripWithInputReader() throws IOException {
+
+    Random random = new Random(7);
+    int[] ints = new int[1000];
+    double[] doubles = new double[1000];
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = random.nextInt();
+      doubles[i] = random.nextDouble() * 1000;
+    }
+
+    OutputWriter out = getWriter();
+    out.printIntArray(ints);
+    out.printDoubleArray(doubles);
+
+    com.williamfiset.fastjavaio.InputReader in = TestInputReader.getReader(written(out));
+    assertArrayEquals(ints, in.nextIntArray(ints.length));
+    assertArrayEquals(doubles, in.nextDoubleArray(doubles.length), 0.0);
+
+  }
+
+}
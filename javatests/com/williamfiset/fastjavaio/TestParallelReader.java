@@ -0,0 +1,76 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.ParallelReader;
+import org.junit.*;
+import java.util.*;
+import java.io.*;
+import java.nio.file.*;
+
+public class TestParallelReader {
+
+  // Write data to a temporary file which is deleted when the tests finish
+  private static Path writeFile(String data) throws IOException {
+    Path file = Files.createTempFile("fastjavaio", ".txt");
+    file.toFile().deleteOnExit();
+    Files.write(file, data.getBytes());
+    return file;
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testIllegalParallelism() throws IOException {
+    ParallelReader.readInts(writeFile("1 2 3"), 0);
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    assertEquals(0, ParallelReader.readInts(writeFile(""), 4).length);
+    assertEquals(0, ParallelReader.readLongs(writeFile(" \n\n "), 4).length);
+  }
+
+  @Test
+  public void testSmallFile() throws IOException {
+    Path file = writeFile("  1 -2\n3\n\n -4 5  ");
+    assertArrayEquals(new int[]{1, -2, 3, -4, 5}, ParallelReader.readInts(file, 3));
+    assertArrayEquals(new long[]{1, -2, 3, -4, 5}, ParallelReader.readLongs(file, 1));
+  }
+
+  @Test
+  public void testLargeFileKeepsOrder() throws IOException {
+
+    // Large enough to be split into several ranges
+    Random random = new Random(6);
+    int[] ints = new int[800000];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = random.nextInt();
+      sb.append(ints[i]).append(i % 10 == 9 ? "\n" : " ");
+    }
+    Path file = writeFile(sb.toString());
+
+    for (int parallelism = 1; parallelism <= 4; parallelism++)
+      assertArrayEquals(ints, ParallelReader.readInts(file, parallelism));
+
+  }
+
+  @Test
+  public void testLargeFileOfLongsAndDoubles() throws IOException {
+
+    Random random = new Random(8);
+    long[] longs = new long[300000];
+    double[] doubles = new double[300000];
+    StringBuilder longData = new StringBuilder(), doubleData = new StringBuilder();
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = random.nextLong();
+      doubles[i] = random.nextDouble() * random.nextInt();
+      longData.append(longs[i]).append('\n');
+      doubleData.append(doubles[i]).append(' ');
+    }
+
+    assertArrayEquals(longs, ParallelReader.readLongs(writeFile(longData.toString()), 4));
+    assertArrayEquals(doubles, ParallelReader.readDoubles(writeFile(doubleData.toString()), 4), 0.0);
+
+  }
+
+}
@@ -0,0 +1,143 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.InputReaderStats;
+import com.williamfiset.fastjavaio.RowBatch;
+import com.williamfiset.fastjavaio.RowBatch.Type;
+import org.junit.*;
+import java.io.*;
+import java.util.Arrays;
+
+public class TestRowBatch {
+
+  private static InputReader getReader(String s, int bufferSize) {
+    return new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+  }
+
+  @Test
+  public void testReadBatch() throws IOException {
+
+    String input = "1 10 1.5 apple\n2 20 2.5 banana\n3 30 3.5 cherry\n4 40 4.5 date\n5 50 5.5 elder\n";
+    for (int bufferSize = 1; bufferSize <= 64; bufferSize++) {
+      InputReader in = getReader(input, bufferSize);
+      RowBatch batch = new RowBatch(2, Type.LONG, Type.INT, Type.DOUBLE, Type.STRING);
+
+      assertEquals(2, in.readBatch(batch));
+      assertArrayEquals(new long[] {1, 2}, batch.longs(0));
+      assertArrayEquals(new int[] {10, 20}, batch.ints(1));
+      assertArrayEquals(new double[] {1.5, 2.5}, batch.doubles(2), 0);
+      assertArrayEquals(new String[] {"apple", "banana"}, batch.strings(3));
+
+      assertEquals(2, in.readBatch(batch));
+      assertArrayEquals(new String[] {"cherry", "date"}, batch.strings(3));
+
+      // The last batch is short, and forgets the Strings of the one before it
+      assertEquals(1, in.readBatch(batch));
+      assertEquals(1, batch.size());
+      assertEquals(5, batch.longs(0)[0]);
+      assertArrayEquals(new String[] {"elder", null}, batch.strings(3));
+
+      assertEquals(0, in.readBatch(batch));
+      assertEquals(0, batch.size());
+    }
+
+  }
+
+  @Test
+  public void testReadBatchCsv() throws IOException {
+
+    String input = "7,\"a,b\",-3,0.5\r\n8,, 4 ,1e3\n9,c,\"5\",-2\n";
+    for (int bufferSize = 1; bufferSize <= 64; bufferSize++) {
+      InputReader in = getReader(input, bufferSize);
+      in.enableCsv(",");
+      RowBatch batch = new RowBatch(8, Type.INT, Type.STRING, Type.LONG, Type.DOUBLE);
+      assertEquals(3, in.readBatch(batch));
+      assertTrue(in.endOfRecord());
+      assertArrayEquals(new int[] {7, 8, 9}, Arrays.copyOf(batch.ints(0), 3));
+      assertArrayEquals(new String[] {"a,b", "", "c"}, Arrays.copyOf(batch.strings(1), 3));
+      assertArrayEquals(new long[] {-3, 4, 5}, Arrays.copyOf(batch.longs(2), 3));
+      assertArrayEquals(new double[] {0.5, 1000, -2}, Arrays.copyOf(batch.doubles(3), 3), 0);
+    }
+
+  }
+
+  @Test
+  public void testReadBatchUnusualNumbers() throws IOException {
+    // Numbers the batch loop leaves to nextInt() and nextLong(), with their '+' and
+    // exponent handling, still come out the same
+    InputReader in = getReader("+5 -0 12\n-7 +8 3\n", 64);
+    RowBatch batch = new RowBatch(4, Type.INT, Type.LONG, Type.DOUBLE);
+    assertEquals(2, in.readBatch(batch));
+    assertArrayEquals(new int[] {5, -7}, Arrays.copyOf(batch.ints(0), 2));
+    assertArrayEquals(new long[] {0, 8}, Arrays.copyOf(batch.longs(1), 2));
+    assertArrayEquals(new double[] {12, 3}, Arrays.copyOf(batch.doubles(2), 2), 0);
+  }
+
+  @Test
+  public void testReadBatchStats() throws IOException {
+    InputReaderStats stats = new InputReaderStats();
+    InputReader in = getReader("1 2 2.5 x\n3 4 4.5 y\n5 6 6.5 z\n", 12);
+    in.enableStats(stats);
+    in.readBatch(new RowBatch(8, Type.INT, Type.LONG, Type.DOUBLE, Type.STRING));
+    assertEquals(3, stats.getInts());
+    assertEquals(3, stats.getLongs());
+    assertEquals(3, stats.getDoubles());
+    assertEquals(3, stats.getStrings());
+  }
+
+  @Test(expected=IOException.class)
+  public void testIncompleteRow() throws IOException {
+    getReader("1 2 3", 16).readBatch(new RowBatch(4, Type.INT, Type.INT));
+  }
+
+  @Test(expected=IOException.class)
+  public void testIncompleteRowString() throws IOException {
+    getReader("1 a 2", 16).readBatch(new RowBatch(4, Type.INT, Type.STRING));
+  }
+
+  @Test
+  public void testSchema() {
+
+    RowBatch batch = new RowBatch(16, Type.DOUBLE, Type.STRING);
+    assertEquals(16, batch.capacity());
+    assertEquals(2, batch.columns());
+    assertEquals(Type.DOUBLE, batch.type(0));
+    assertEquals(Type.STRING, batch.type(1));
+    assertEquals(16, batch.doubles(0).length);
+    assertEquals("RowBatch[size=0, capacity=16, schema=[DOUBLE, STRING]]", batch.toString());
+
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testWrongColumnType() {
+    new RowBatch(16, Type.DOUBLE, Type.STRING).ints(0);
+  }
+
+  @Test(expected=IndexOutOfBoundsException.class)
+  public void testMissingColumn() {
+    new RowBatch(16, Type.DOUBLE).doubles(1);
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testEmptySchema() {
+    new RowBatch(16);
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testZeroCapacity() {
+    new RowBatch(0, Type.INT);
+  }
+
+  @Test
+  public void testClear() throws IOException {
+    RowBatch batch = new RowBatch(4, Type.STRING);
+    getReader("a b c", 16).readBatch(batch);
+    assertEquals(3, batch.size());
+    batch.clear();
+    assertEquals(0, batch.size());
+    assertNull(batch.strings(0)[0]);
+  }
+
+}
@@ -0,0 +1,133 @@
+package javatests.com.williamfiset.fastjavaio;
+
+import static org.junit.Assert.*;
+
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.StringCache;
+import org.junit.*;
+import java.util.*;
+import java.io.*;
+
+public class TestStringCache {
+
+  private InputReader getReader(String s, StringCache cache) {
+    int bufferSize = 1 + (int)(Math.random() * 50);
+    InputReader in = new InputReader(new ByteArrayInputStream(s.getBytes()), bufferSize);
+    in.enableStringCache(cache);
+    return in;
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testIllegalCapacity() {
+    new StringCache(0);
+  }
+
+  @Test
+  public void testCapacity() {
+    assertEquals(8, new StringCache(1).capacity());
+    assertEquals(8, new StringCache(8).capacity());
+    assertEquals(16, new StringCache(9).capacity());
+    assertEquals(1024, new StringCache(1000).capacity());
+  }
+
+  @Test
+  public void testCanonicalStrings() throws IOException {
+
+    StringCache cache = new StringCache(64);
+    InputReader in = getReader("CA US CA FR\nUS CA", cache);
+
+    String ca = in.nextString();
+    String us = in.nextString();
+    assertEquals("CA", ca);
+    assertEquals("US", us);
+    assertSame(ca, in.nextString());
+    assertEquals("FR", in.nextString());
+    assertSame(us, in.nextString());
+    assertSame(ca, in.nextString());
+    assertNull(in.nextString());
+
+    assertEquals(3, cache.hits());
+    assertEquals(3, cache.misses());
+    assertEquals(0, cache.evictions());
+    assertEquals(3, cache.size());
+
+  }
+
+  @Test
+  public void testStringArrays() throws IOException {
+
+    StringCache cache = new StringCache(16);
+    InputReader in = getReader("ok fail ok ok fail ok", cache);
+    String[] ar = in.nextStringArray(6);
+    assertArrayEquals(new String[]{"ok", "fail", "ok", "ok", "fail", "ok"}, ar);
+    assertSame(ar[0], ar[5]);
+    assertSame(ar[1], ar[4]);
+
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+
+    StringCache cache = new StringCache(8);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) sb.append("word").append(i).append(' ');
+
+    InputReader in = getReader(sb.toString(), cache);
+    for (int i = 0; i < 1000; i++) assertEquals("word" + i, in.nextString());
+
+    assertEquals(1000, cache.misses());
+    assertEquals(8, cache.size());
+    assertEquals(992, cache.evictions());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.misses());
+
+  }
+
+  @Test
+  public void testHotTokensSurviveEviction() throws IOException {
+
+    StringCache cache = new StringCache(8);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) sb.append("hot ").append("cold").append(i).append(' ');
+
+    InputReader in = getReader(sb.toString(), cache);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("hot", in.nextString());
+      assertEquals("cold" + i, in.nextString());
+    }
+    assertTrue(cache.hits() >= 990);
+
+  }
+
+  @Test
+  public void testLongTokensBypassCache() throws IOException {
+
+    char[] chars = new char[StringCache.MAX_TOKEN_LENGTH + 1];
+    Arrays.fill(chars, 'x');
+    String longToken = new String(chars);
+
+    StringCache cache = new StringCache(8);
+    InputReader in = getReader(longToken + " " + longToken, cache);
+    assertEquals(longToken, in.nextString());
+    assertEquals(longToken, in.nextString());
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.hits());
+
+  }
+
+  @Test
+  public void testDisableCache() throws IOException {
+
+    StringCache cache = new StringCache(8);
+    InputReader in = getReader("a a a", cache);
+    in.nextString();
+    in.enableStringCache(null);
+    assertEquals("a", in.nextString());
+    assertEquals(1, cache.misses());
+    assertEquals(0, cache.hits());
+
+  }
+
+}
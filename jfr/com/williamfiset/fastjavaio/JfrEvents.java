@@ -0,0 +1,166 @@
+/**
+ * The Java Flight Recorder events emitted by the InputReader. This is the only class
+ * which refers to jdk.jfr. It lives in its own source set, compiled for Java 11 while
+ * the rest of the library is compiled for Java 8, and {@link Jfr} only loads it by
+ * name once it has checked that Flight Recorder exists in this JVM, so the library
+ * still compiles and runs without it. The event types are registered the first time
+ * an event is checked after Flight Recorder has been started.
+ *
+ * @author William Fiset, william.alexandre.fiset@gmail.com
+ **/
+package com.williamfiset.fastjavaio;
+
+import java.io.InputStream;
+import java.io.IOException;
+import jdk.jfr.*;
+
+final class JfrEvents implements Jfr.Recorder {
+
+  private static final String CATEGORY = "FastJavaIO";
+
+  @Name("com.williamfiset.fastjavaio.Refill")
+  @Label("Buffer Refill")
+  @Category(CATEGORY)
+  @Description("A read from the stream of an InputReader to refill its buffer")
+  @StackTrace(false)
+  static final class Refill extends Event {
+
+    @Label("Bytes Returned")
+    @DataAmount
+    int bytes;
+
+    @Label("Buffer Size")
+    @DataAmount
+    int bufferSize;
+
+    @Label("Skipped Events")
+    @Description("Refills not recorded since the previous event because of the rate limit")
+    long skipped;
+
+  }
+
+  @Name("com.williamfiset.fastjavaio.LongToken")
+  @Label("Long Token")
+  @Category(CATEGORY)
+  @Description("A token, line or fixed-width record which crossed a buffer refill and made the scratch buffer grow")
+  static final class LongToken extends Event {
+
+    @Label("Line")
+    boolean line;
+
+    @Label("Length")
+    @Description("The length of the token or line copied so far")
+    @DataAmount
+    int length;
+
+    @Label("Scratch Buffer Size")
+    @DataAmount
+    int capacity;
+
+    @Label("Skipped Events")
+    long skipped;
+
+  }
+
+  @Name("com.williamfiset.fastjavaio.SlowNumber")
+  @Label("Slow Number")
+  @Category(CATEGORY)
+  @Description("A double or float which the fast parser could not round and handed to the JDK")
+  static final class SlowNumber extends Event {
+
+    @Label("Token")
+    String token;
+
+    @Label("Float")
+    boolean isFloat;
+
+    @Label("Skipped Events")
+    long skipped;
+
+  }
+
+  // Holds the event types, which registers them the first time it is used
+  private static final class Types {
+    static final EventType REFILL = EventType.getEventType(Refill.class);
+    static final EventType LONG_TOKEN = EventType.getEventType(LongToken.class);
+    static final EventType SLOW_NUMBER = EventType.getEventType(SlowNumber.class);
+  }
+
+  private static final Jfr.RateLimit REFILLS = new Jfr.RateLimit();
+  private static final Jfr.RateLimit LONG_TOKENS = new Jfr.RateLimit();
+  private static final Jfr.RateLimit SLOW_NUMBERS = new Jfr.RateLimit();
+
+  // The longest token recorded in a SlowNumber event
+  private static final int MAX_TOKEN_LENGTH = 64;
+
+  // Created by Jfr through reflection
+  JfrEvents() {}
+
+  @Override
+  public boolean initialized() {
+    return FlightRecorder.isInitialized();
+  }
+
+  @Override
+  public boolean refillEnabled() {
+    return Types.REFILL.isEnabled();
+  }
+
+  @Override
+  public boolean longTokenEnabled() {
+    return Types.LONG_TOKEN.isEnabled();
+  }
+
+  @Override
+  public boolean slowNumberEnabled() {
+    return Types.SLOW_NUMBER.isEnabled();
+  }
+
+  @Override
+  public int refill(InputStream stream, byte[] buf, InputReaderStats stats) throws IOException {
+    Refill event = new Refill();
+    event.begin();
+    int n = stats == null ? stream.read(buf) : stats.read(stream, buf);
+    event.end();
+    if (event.shouldCommit()) {
+      long skipped = REFILLS.tryAcquire();
+      if (skipped >= 0) {
+        event.bytes = n;
+        event.bufferSize = buf.length;
+        event.skipped = skipped;
+        event.commit();
+      }
+    }
+    return n;
+  }
+
+  @Override
+  public void longToken(boolean line, int length, int capacity) {
+    LongToken event = new LongToken();
+    if (event.shouldCommit()) {
+      long skipped = LONG_TOKENS.tryAcquire();
+      if (skipped >= 0) {
+        event.line = line;
+        event.length = length;
+        event.capacity = capacity;
+        event.skipped = skipped;
+        event.commit();
+      }
+    }
+  }
+
+  @Override
+  public void slowNumber(String token, boolean isFloat) {
+    SlowNumber event = new SlowNumber();
+    if (event.shouldCommit()) {
+      long skipped = SLOW_NUMBERS.tryAcquire();
+      if (skipped >= 0) {
+        event.token = token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) + "..." : token;
+        event.isFloat = isFloat;
+        event.skipped = skipped;
+        event.commit();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Reads the same inputs as the InputReaderBenchmark with the JDK's own
+ * BufferedReader, StreamTokenizer and Scanner to compare against.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import java.io.*;
+import java.util.Scanner;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import jmh.com.williamfiset.fastjavaio.InputData.Kind;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineBenchmark {
+
+  private static BufferedReader bufferedReader(InputData data, Kind kind) throws IOException {
+    return new BufferedReader(new InputStreamReader(data.open(kind), "UTF-8"));
+  }
+
+  private static StreamTokenizer streamTokenizer(InputData data, Kind kind) throws IOException {
+    return new StreamTokenizer(bufferedReader(data, kind));
+  }
+
+  private static Scanner scanner(InputData data, Kind kind) throws IOException {
+    return new Scanner(bufferedReader(data, kind));
+  }
+
+  @Benchmark
+  public long bufferedReader_parseInt(InputData data) throws IOException {
+    BufferedReader br = bufferedReader(data, Kind.INTS);
+    long sum = 0;
+    for (String line; (line = br.readLine()) != null;) {
+      StringTokenizer st = new StringTokenizer(line);
+      while (st.hasMoreTokens()) sum += Integer.parseInt(st.nextToken());
+    }
+    br.close();
+    return sum;
+  }
+
+  @Benchmark
+  public long bufferedReader_parseLong(InputData data) throws IOException {
+    BufferedReader br = bufferedReader(data, Kind.LONGS);
+    long sum = 0;
+    for (String line; (line = br.readLine()) != null;) {
+      StringTokenizer st = new StringTokenizer(line);
+      while (st.hasMoreTokens()) sum += Long.parseLong(st.nextToken());
+    }
+    br.close();
+    return sum;
+  }
+
+  @Benchmark
+  public double bufferedReader_parseDouble(InputData data) throws IOException {
+    BufferedReader br = bufferedReader(data, Kind.DOUBLES);
+    double sum = 0;
+    for (String line; (line = br.readLine()) != null;) {
+      StringTokenizer st = new StringTokenizer(line);
+      while (st.hasMoreTokens()) sum += Double.parseDouble(st.nextToken());
+    }
+    br.close();
+    return sum;
+  }
+
+  @Benchmark
+  public void bufferedReader_strings(InputData data, Blackhole bh) throws IOException {
+    BufferedReader br = bufferedReader(data, Kind.STRINGS);
+    for (String line; (line = br.readLine()) != null;) {
+      StringTokenizer st = new StringTokenizer(line);
+      while (st.hasMoreTokens()) bh.consume(st.nextToken());
+    }
+    br.close();
+  }
+
+  @Benchmark
+  public void bufferedReader_readLine(InputData data, Blackhole bh) throws IOException {
+    BufferedReader br = bufferedReader(data, Kind.STRINGS);
+    for (String line; (line = br.readLine()) != null;) bh.consume(line);
+    br.close();
+  }
+
+  // StreamTokenizer parses every number as a double, so it is only a baseline for ints and doubles
+  @Benchmark
+  public long streamTokenizer_ints(InputData data) throws IOException {
+    StreamTokenizer st = streamTokenizer(data, Kind.INTS);
+    long sum = 0;
+    while (st.nextToken() != StreamTokenizer.TT_EOF) sum += (int) st.nval;
+    return sum;
+  }
+
+  @Benchmark
+  public double streamTokenizer_doubles(InputData data) throws IOException {
+    StreamTokenizer st = streamTokenizer(data, Kind.DOUBLES);
+    double sum = 0;
+    while (st.nextToken() != StreamTokenizer.TT_EOF) sum += st.nval;
+    return sum;
+  }
+
+  @Benchmark
+  public void streamTokenizer_strings(InputData data, Blackhole bh) throws IOException {
+    StreamTokenizer st = streamTokenizer(data, Kind.STRINGS);
+    while (st.nextToken() != StreamTokenizer.TT_EOF) bh.consume(st.sval);
+  }
+
+  @Benchmark
+  public long scanner_nextInt(InputData data) throws IOException {
+    Scanner sc = scanner(data, Kind.INTS);
+    long sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += sc.nextInt();
+    sc.close();
+    return sum;
+  }
+
+  @Benchmark
+  public long scanner_nextLong(InputData data) throws IOException {
+    Scanner sc = scanner(data, Kind.LONGS);
+    long sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += sc.nextLong();
+    sc.close();
+    return sum;
+  }
+
+  @Benchmark
+  public double scanner_nextDouble(InputData data) throws IOException {
+    Scanner sc = scanner(data, Kind.DOUBLES);
+    double sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += sc.nextDouble();
+    sc.close();
+    return sum;
+  }
+
+  @Benchmark
+  public void scanner_next(InputData data, Blackhole bh) throws IOException {
+    Scanner sc = scanner(data, Kind.STRINGS);
+    for (int i = 0; i < InputData.TOKENS; i++) bh.consume(sc.next());
+    sc.close();
+  }
+
+  @Benchmark
+  public void scanner_nextLine(InputData data, Blackhole bh) throws IOException {
+    Scanner sc = scanner(data, Kind.STRINGS);
+    for (int i = Kind.STRINGS.lines(); i > 0; i--) bh.consume(sc.nextLine());
+    sc.close();
+  }
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Compares reading the same rows (long id, int count, double price, String tag) as
+ * fixed-width records against reading them delimited by spaces with a RowBatch, next
+ * to a plain pass summing the bytes of the fixed-width data, which bounds what any
+ * parser could reach.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import com.williamfiset.fastjavaio.FixedWidthLayout;
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.RowBatch;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedWidthBenchmark {
+
+  static final int ROWS = 200_000;
+
+  private static final String[] TAGS = {"new", "open", "paid", "shipped", "returned", "void"};
+
+  private static final FixedWidthLayout LAYOUT = new FixedWidthLayout(
+    new int[] {16, 4, 10, 8},
+    new RowBatch.Type[] {RowBatch.Type.LONG, RowBatch.Type.INT, RowBatch.Type.DOUBLE, RowBatch.Type.STRING});
+
+  private byte[] fixed, delimited;
+  private RowBatch batch;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    Random random = new Random(0);
+    StringBuilder f = new StringBuilder(), d = new StringBuilder();
+    for (int i = 0; i < ROWS; i++) {
+      long id = random.nextLong() >>> 20;
+      int count = random.nextInt(1000);
+      double price = random.nextInt(100000) / 100.0;
+      String tag = TAGS[random.nextInt(TAGS.length)];
+      f.append(String.format("%16d%4d%10s%-8s\n", id, count, price, tag));
+      d.append(id).append(' ').append(count).append(' ').append(price).append(' ').append(tag).append('\n');
+    }
+    fixed = f.toString().getBytes("UTF-8");
+    delimited = d.toString().getBytes("UTF-8");
+    batch = LAYOUT.newBatch(4096);
+  }
+
+  @Benchmark
+  public long sumBytes() {
+    long sum = 0;
+    for (byte b : fixed) sum += b;
+    return sum;
+  }
+
+  @Benchmark
+  public double fixedWidth() throws IOException {
+    InputReader in = new InputReader(new ByteArrayInputStream(fixed));
+    return sum(in, true);
+  }
+
+  @Benchmark
+  public double delimited() throws IOException {
+    InputReader in = new InputReader(new ByteArrayInputStream(delimited));
+    return sum(in, false);
+  }
+
+  private double sum(InputReader in, boolean fixedWidth) throws IOException {
+    long[] ids = batch.longs(0);
+    int[] counts = batch.ints(1);
+    double[] prices = batch.doubles(2);
+    String[] tags = batch.strings(3);
+    double sum = 0;
+    int rows;
+    while ((rows = fixedWidth ? in.readBatch(LAYOUT, batch) : in.readBatch(batch)) > 0)
+      for (int i = 0; i < rows; i++) sum += ids[i] + counts[i] * prices[i] + tags[i].length();
+    return sum;
+  }
+
+}
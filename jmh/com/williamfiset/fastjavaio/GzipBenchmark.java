@@ -0,0 +1,56 @@
+/**
+ * Compares reading gzip compressed input through the InputReader's own decompression
+ * against wrapping the stream in a GZIPInputStream first.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import com.williamfiset.fastjavaio.InputReader;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import jmh.com.williamfiset.fastjavaio.InputData.Kind;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GzipBenchmark {
+
+  private static long sumInts(InputReader in) throws IOException {
+    long sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += in.nextInt();
+    in.close();
+    return sum;
+  }
+
+  // The usual way, with GZIPInputStream's default 512 byte input buffer
+  @Benchmark
+  public long gzipInputStream(InputData data) throws IOException {
+    return sumInts(new InputReader(new GZIPInputStream(data.openGzip(Kind.INTS))));
+  }
+
+  @Benchmark
+  public long gzipInputStreamLargeBuffer(InputData data) throws IOException {
+    return sumInts(new InputReader(new GZIPInputStream(data.openGzip(Kind.INTS), 1 << 16)));
+  }
+
+  @Benchmark
+  public long enableGzip(InputData data) throws IOException {
+    InputReader in = new InputReader(data.openGzip(Kind.INTS));
+    in.enableGzip();
+    return sumInts(in);
+  }
+
+  // Decompresses on a background thread while the reader parses
+  @Benchmark
+  public long enableGzipPrefetch(InputData data) throws IOException {
+    InputReader in = new InputReader(data.openGzip(Kind.INTS));
+    in.enableGzip();
+    in.enablePrefetch(4);
+    return sumInts(in);
+  }
+
+}
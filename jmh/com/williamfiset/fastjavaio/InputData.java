@@ -0,0 +1,159 @@
+/**
+ * The input shared by all benchmarks. Each kind of data (ints, longs, doubles,
+ * strings and lines) is taken once per trial from the same DataGenerator corpora
+ * the tests check, with a fixed seed and the token width given by the 'tokens'
+ * parameter, and can be opened as an in-memory stream, a file on disk, a memory
+ * mapped file or the read end of a pipe.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.file.*;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import com.williamfiset.fastjavaio.InputReader;
+import org.openjdk.jmh.annotations.*;
+import testfixtures.com.williamfiset.fastjavaio.DataGenerator;
+
+@State(Scope.Benchmark)
+public class InputData {
+
+  // The number of tokens in each kind of data
+  static final int TOKENS = 500_000;
+
+  enum Kind {
+
+    INTS(DataGenerator.Corpus.INTS),
+    LONGS(DataGenerator.Corpus.LONGS),
+    DOUBLES(DataGenerator.Corpus.DOUBLES),
+    STRINGS(DataGenerator.Corpus.WORDS);
+
+    final DataGenerator.Corpus corpus;
+
+    Kind(DataGenerator.Corpus corpus) {
+      this.corpus = corpus;
+    }
+
+    // The number of lines in the data of this kind, which hold TOKENS tokens
+    int lines() {
+      return (TOKENS + corpus.tokensPerLine - 1) / corpus.tokensPerLine;
+    }
+
+  }
+
+  // Where the InputStream under test reads from. A mapped file is read through
+  // InputReader(Path); anything which needs a plain stream reads it as a file.
+  @Param({"memory", "file", "mapped", "pipe"})
+  public String source;
+
+  // short: 1 to 3 characters, mixed: anywhere from short to long, long: the widest values
+  @Param({"short", "mixed", "long"})
+  public String tokens;
+
+  private final Map<Kind, byte[]> data = new EnumMap<>(Kind.class);
+  private final Map<Kind, Path> files = new EnumMap<>(Kind.class);
+
+  // The data compressed with gzip, created the first time it is opened
+  private final Map<Kind, byte[]> gzipData = new EnumMap<>(Kind.class);
+  private final Map<Kind, Path> gzipFiles = new EnumMap<>(Kind.class);
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    DataGenerator.Width width = DataGenerator.Width.valueOf(tokens.toUpperCase());
+    for (Kind kind : Kind.values()) {
+      byte[] bytes = generate(new DataGenerator(kind.corpus, width, Long.MAX_VALUE, DataGenerator.DEFAULT_SEED, false), kind.lines());
+      data.put(kind, bytes);
+      if (onDisk()) {
+        Path file = Files.createTempFile("fastjavaio_" + kind.name().toLowerCase(), ".txt");
+        Files.write(file, bytes);
+        files.put(kind, file);
+      }
+    }
+  }
+
+  // Reads the first lines of an endless corpus
+  private static byte[] generate(InputStream generator, int lines) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int b; lines > 0 && (b = generator.read()) != -1;) {
+      out.write(b);
+      if (b == '\n') lines--;
+    }
+    return out.toByteArray();
+  }
+
+  private boolean onDisk() {
+    return source.equals("file") || source.equals("mapped");
+  }
+
+  // Opens a fresh InputReader over the data of a kind, mapping the file when the source is mapped
+  InputReader reader(Kind kind, int bufferSize) throws IOException {
+    if (source.equals("mapped")) return new InputReader(files.get(kind), bufferSize);
+    return new InputReader(open(kind), bufferSize);
+  }
+
+  // Opens a fresh stream over the data of a kind
+  InputStream open(Kind kind) throws IOException {
+    return open(data.get(kind), files.get(kind));
+  }
+
+  // Opens a fresh stream over the data of a kind compressed with gzip
+  InputStream openGzip(Kind kind) throws IOException {
+    if (!gzipData.containsKey(kind)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16)) {
+        gzip.write(data.get(kind));
+      }
+      gzipData.put(kind, out.toByteArray());
+      if (onDisk()) {
+        Path file = Files.createTempFile("fastjavaio_" + kind.name().toLowerCase(), ".txt.gz");
+        Files.write(file, out.toByteArray());
+        gzipFiles.put(kind, file);
+      }
+    }
+    return open(gzipData.get(kind), gzipFiles.get(kind));
+  }
+
+  private InputStream open(byte[] bytes, Path file) throws IOException {
+    switch (source) {
+      case "memory":
+        return new ByteArrayInputStream(bytes);
+      case "file":
+      case "mapped":
+        return new FileInputStream(file.toFile());
+      case "pipe":
+        return pipe(bytes);
+      default:
+        throw new IllegalArgumentException(source);
+    }
+  }
+
+  // Writes the bytes into an operating system pipe from another thread
+  private static InputStream pipe(byte[] bytes) throws IOException {
+    Pipe pipe = Pipe.open();
+    Thread writer = new Thread(() -> {
+      try (Pipe.SinkChannel sink = pipe.sink()) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) sink.write(buffer);
+      } catch (IOException e) {
+        // The reader closed the pipe early
+      }
+    });
+    writer.setDaemon(true);
+    writer.start();
+    return Channels.newInputStream(pipe.source());
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFiles() throws IOException {
+    for (Path file : files.values()) Files.deleteIfExists(file);
+    for (Path file : gzipFiles.values()) Files.deleteIfExists(file);
+    files.clear();
+    gzipFiles.clear();
+  }
+
+}
@@ -0,0 +1,163 @@
+/**
+ * Measures the time to read a whole input with each of the InputReader's
+ * methods, for several buffer sizes, token lengths and kinds of stream.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import com.williamfiset.fastjavaio.ByteSlice;
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.StringCache;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import jmh.com.williamfiset.fastjavaio.InputData.Kind;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputReaderBenchmark {
+
+  @Param({"4096", "65536", "1048576"})
+  public int bufferSize;
+
+  private InputReader open(InputData data, Kind kind) throws IOException {
+    return data.reader(kind, bufferSize);
+  }
+
+  @Benchmark
+  public long nextByte(InputData data) throws IOException {
+    InputReader in = open(data, Kind.INTS);
+    long sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += in.nextByte();
+    in.close();
+    return sum;
+  }
+
+  @Benchmark
+  public long nextInt(InputData data) throws IOException {
+    InputReader in = open(data, Kind.INTS);
+    long sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += in.nextInt();
+    in.close();
+    return sum;
+  }
+
+  // Starts from bufferSize and lets the reader find the best size for the source
+  @Benchmark
+  public long nextIntAdaptive(InputData data) throws IOException {
+    InputReader in = open(data, Kind.INTS);
+    in.enableAdaptiveBuffering(4096, 1 << 20);
+    long sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += in.nextInt();
+    in.close();
+    return sum;
+  }
+
+  @Benchmark
+  public long nextLong(InputData data) throws IOException {
+    InputReader in = open(data, Kind.LONGS);
+    long sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += in.nextLong();
+    in.close();
+    return sum;
+  }
+
+  @Benchmark
+  public double nextDouble(InputData data) throws IOException {
+    InputReader in = open(data, Kind.DOUBLES);
+    double sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += in.nextDouble();
+    in.close();
+    return sum;
+  }
+
+  @Benchmark
+  public double nextFloat(InputData data) throws IOException {
+    InputReader in = open(data, Kind.DOUBLES);
+    double sum = 0;
+    for (int i = 0; i < InputData.TOKENS; i++) sum += in.nextFloat();
+    in.close();
+    return sum;
+  }
+
+  @Benchmark
+  public void nextString(InputData data, Blackhole bh) throws IOException {
+    InputReader in = open(data, Kind.STRINGS);
+    for (int i = 0; i < InputData.TOKENS; i++) bh.consume(in.nextString());
+    in.close();
+  }
+
+  @Benchmark
+  public void nextStringCached(InputData data, Blackhole bh) throws IOException {
+    InputReader in = open(data, Kind.STRINGS);
+    in.enableStringCache(new StringCache(4096));
+    for (int i = 0; i < InputData.TOKENS; i++) bh.consume(in.nextString());
+    in.close();
+  }
+
+  @Benchmark
+  public void nextLine(InputData data, Blackhole bh) throws IOException {
+    InputReader in = open(data, Kind.STRINGS);
+    for (int i = Kind.STRINGS.lines(); i > 0; i--) bh.consume(in.nextLine());
+    in.close();
+  }
+
+  @Benchmark
+  public long nextToken(InputData data) throws IOException {
+    InputReader in = open(data, Kind.STRINGS);
+    ByteSlice token = new ByteSlice();
+    long sum = 0;
+    while (in.nextToken(token)) sum += token.hashCode();
+    in.close();
+    return sum;
+  }
+
+  @Benchmark
+  public long skipTokens(InputData data) throws IOException {
+    InputReader in = open(data, Kind.STRINGS);
+    long n = in.skipTokens(InputData.TOKENS);
+    in.close();
+    return n;
+  }
+
+  @Benchmark
+  public long skipLines(InputData data) throws IOException {
+    InputReader in = open(data, Kind.STRINGS);
+    long n = in.skipLines(Kind.STRINGS.lines());
+    in.close();
+    return n;
+  }
+
+  @Benchmark
+  public void readInts(InputData data, Blackhole bh) throws IOException {
+    InputReader in = open(data, Kind.INTS);
+    int[] batch = new int[4096];
+    int n;
+    while ((n = in.readInts(batch, 0, batch.length)) > 0) bh.consume(batch[n - 1]);
+    in.close();
+  }
+
+  @Benchmark
+  public void readLongs(InputData data, Blackhole bh) throws IOException {
+    InputReader in = open(data, Kind.LONGS);
+    long[] batch = new long[4096];
+    int n;
+    while ((n = in.readLongs(batch, 0, batch.length)) > 0) bh.consume(batch[n - 1]);
+    in.close();
+  }
+
+  @Benchmark
+  public void readDoubles(InputData data, Blackhole bh) throws IOException {
+    InputReader in = open(data, Kind.DOUBLES);
+    double[] batch = new double[4096];
+    int n;
+    while ((n = in.readDoubles(batch, 0, batch.length)) > 0) bh.consume(batch[n - 1]);
+    in.close();
+  }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * Compares writing ints, longs, doubles and strings one per line with the OutputWriter
+ * against PrintWriter and BufferedWriter. The output is discarded, so only formatting
+ * and buffering are measured, not the disk.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.OutputWriter;
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import testfixtures.com.williamfiset.fastjavaio.DataGenerator;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputWriterBenchmark {
+
+  static final int VALUES = 1_000_000;
+
+  // Throws away everything written to it
+  private static final OutputStream NULL = new OutputStream() {
+    @Override public void write(int b) {}
+    @Override public void write(byte[] b, int off, int len) {}
+  };
+
+  private int[] ints;
+  private long[] longs;
+  private double[] doubles;
+  private String[] strings;
+
+  // Parses the values to write out of the generated corpora
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    ints = new int[VALUES];
+    longs = new long[VALUES];
+    doubles = new double[VALUES];
+    strings = new String[VALUES];
+    corpus(DataGenerator.Corpus.INTS).readInts(ints);
+    corpus(DataGenerator.Corpus.LONGS).readLongs(longs);
+    corpus(DataGenerator.Corpus.DOUBLES).readDoubles(doubles);
+    InputReader words = corpus(DataGenerator.Corpus.WORDS);
+    for (int i = 0; i < VALUES; i++) strings[i] = words.nextString();
+  }
+
+  private static InputReader corpus(DataGenerator.Corpus corpus) {
+    return new InputReader(new DataGenerator(corpus, Long.MAX_VALUE));
+  }
+
+  private static PrintWriter printWriter() {
+    return new PrintWriter(new BufferedWriter(new OutputStreamWriter(NULL)));
+  }
+
+  private static BufferedWriter bufferedWriter() {
+    return new BufferedWriter(new OutputStreamWriter(NULL));
+  }
+
+  @Benchmark
+  public void printWriter_int() {
+    PrintWriter pw = printWriter();
+    for (int v : ints) pw.println(v);
+    pw.close();
+  }
+
+  @Benchmark
+  public void bufferedWriter_int() throws IOException {
+    BufferedWriter bw = bufferedWriter();
+    for (int v : ints) {
+      bw.write(Integer.toString(v));
+      bw.newLine();
+    }
+    bw.close();
+  }
+
+  @Benchmark
+  public void outputWriter_int() throws IOException {
+    OutputWriter out = new OutputWriter(NULL);
+    for (int v : ints) out.println(v);
+    out.close();
+  }
+
+  @Benchmark
+  public void outputWriter_intArray() throws IOException {
+    OutputWriter out = new OutputWriter(NULL);
+    out.printIntArray(ints);
+    out.close();
+  }
+
+  @Benchmark
+  public void printWriter_long() {
+    PrintWriter pw = printWriter();
+    for (long v : longs) pw.println(v);
+    pw.close();
+  }
+
+  @Benchmark
+  public void outputWriter_long() throws IOException {
+    OutputWriter out = new OutputWriter(NULL);
+    for (long v : longs) out.println(v);
+    out.close();
+  }
+
+  @Benchmark
+  public void printWriter_double() {
+    PrintWriter pw = printWriter();
+    for (double v : doubles) pw.println(v);
+    pw.close();
+  }
+
+  @Benchmark
+  public void bufferedWriter_double() throws IOException {
+    BufferedWriter bw = bufferedWriter();
+    for (double v : doubles) {
+      bw.write(Double.toString(v));
+      bw.newLine();
+    }
+    bw.close();
+  }
+
+  @Benchmark
+  public void outputWriter_double() throws IOException {
+    OutputWriter out = new OutputWriter(NULL);
+    for (double v : doubles) out.println(v);
+    out.close();
+  }
+
+  @Benchmark
+  public void printWriter_String() {
+    PrintWriter pw = printWriter();
+    for (String v : strings) pw.println(v);
+    pw.close();
+  }
+
+  @Benchmark
+  public void outputWriter_String() throws IOException {
+    OutputWriter out = new OutputWriter(NULL);
+    for (String v : strings) out.println(v);
+    out.close();
+  }
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Measures how the ParallelReader scales with the number of threads parsing one
+ * large file of ints, next to a single InputReader over the same memory mapped file.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.ParallelReader;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import testfixtures.com.williamfiset.fastjavaio.DataGenerator;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelReaderBenchmark {
+
+  static final long FILE_SIZE = 128L << 20;
+
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  private Path file;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    file = Files.createTempFile("fastjavaio_parallel", ".txt");
+    DataGenerator.write(file, DataGenerator.Corpus.INTS, FILE_SIZE, DataGenerator.DEFAULT_SEED, false);
+  }
+
+  // Does not depend on parallelism, so only the run with one thread is worth reading
+  @Benchmark
+  public long inputReader_readInts() throws IOException {
+    int[] values = new int[1 << 12];
+    long sum = 0;
+    try (InputReader in = new InputReader(file)) {
+      for (int n; (n = in.readInts(values)) > 0;)
+        for (int i = 0; i < n; i++) sum += values[i];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int[] parallelReader_readInts() throws IOException {
+    return ParallelReader.readInts(file, parallelism);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Measures how much reading ahead on a background thread helps the InputReader when
+ * the stream it reads from is slow to respond, like a network connection with limited
+ * bandwidth. Draining the stream without parsing bounds what prefetching can reach.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import com.williamfiset.fastjavaio.InputReader;
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.*;
+import testfixtures.com.williamfiset.fastjavaio.DataGenerator;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefetchBenchmark {
+
+  static final int SIZE = 32 << 20;
+
+  // Every read of the throttled stream returns at most this many bytes after this much delay
+  static final int CHUNK_SIZE = 1 << 16;
+  static final long CHUNK_DELAY_NANOS = 200_000;
+
+  // The number of buffers to read ahead, or 0 to read on the calling thread
+  @Param({"0", "2", "4", "8"})
+  public int prefetchBuffers;
+
+  private byte[] data;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(SIZE + (1 << 10));
+    byte[] buf = new byte[1 << 16];
+    InputStream generator = new DataGenerator(DataGenerator.Corpus.DOUBLES, SIZE);
+    for (int n; (n = generator.read(buf)) != -1;) out.write(buf, 0, n);
+    data = out.toByteArray();
+  }
+
+  private InputStream throttledStream() {
+    return new ByteArrayInputStream(data) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        LockSupport.parkNanos(CHUNK_DELAY_NANOS);
+        return super.read(b, off, Math.min(len, CHUNK_SIZE));
+      }
+    };
+  }
+
+  // Does not depend on prefetchBuffers, so only the run with 0 is worth reading
+  @Benchmark
+  public long drainOnly() throws IOException {
+    InputStream stream = throttledStream();
+    byte[] buf = new byte[CHUNK_SIZE];
+    long n = 0;
+    for (int k; (k = stream.read(buf)) != -1;) n += k;
+    return n;
+  }
+
+  @Benchmark
+  public double readDoubles() throws IOException {
+    double[] values = new double[1 << 12];
+    double sum = 0;
+    try (InputReader in = new InputReader(throttledStream())) {
+      if (prefetchBuffers > 0) in.enablePrefetch(prefetchBuffers);
+      for (int n; (n = in.readDoubles(values)) > 0;)
+        for (int i = 0; i < n; i++) sum += values[i];
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Compares reading rows of a fixed schema (long id, int count, double price, String tag)
+ * with one next call per field against filling a RowBatch, in whitespace and CSV form.
+ * @author William Fiset
+ **/
+package jmh.com.williamfiset.fastjavaio;
+
+import com.williamfiset.fastjavaio.InputReader;
+import com.williamfiset.fastjavaio.RowBatch;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowBatchBenchmark {
+
+  static final int ROWS = 200_000;
+
+  private static final String[] TAGS = {"new", "open", "paid", "shipped", "returned", "void"};
+
+  @Param({" ", ","})
+  public String separator;
+
+  private byte[] data;
+  private RowBatch batch;
+
+  @Setup(Level.Trial)
+  public void generate() throws IOException {
+    Random random = new Random(0);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ROWS; i++) {
+      sb.append(random.nextLong() >>> 20).append(separator)
+        .append(random.nextInt(1000)).append(separator)
+        .append(random.nextInt(100000) / 100.0).append(separator)
+        .append(TAGS[random.nextInt(TAGS.length)]).append('\n');
+    }
+    data = sb.toString().getBytes("UTF-8");
+    batch = new RowBatch(4096, RowBatch.Type.LONG, RowBatch.Type.INT, RowBatch.Type.DOUBLE, RowBatch.Type.STRING);
+  }
+
+  private InputReader open() {
+    InputReader in = new InputReader(new ByteArrayInputStream(data));
+    if (separator.equals(",")) in.enableCsv(",");
+    return in;
+  }
+
+  @Benchmark
+  public double nextPerField() throws IOException {
+    InputReader in = open();
+    double sum = 0;
+    for (int i = 0; i < ROWS; i++) {
+      long id = in.nextLong();
+      int count = in.nextInt();
+      double price = in.nextDouble();
+      String tag = in.nextString();
+      sum += id + count * price + tag.length();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double readBatch() throws IOException {
+    InputReader in = open();
+    long[] ids = batch.longs(0);
+    int[] counts = batch.ints(1);
+    double[] prices = batch.doubles(2);
+    String[] tags = batch.strings(3);
+    double sum = 0;
+    int rows;
+    while ((rows = in.readBatch(batch)) > 0)
+      for (int i = 0; i < rows; i++) sum += ids[i] + counts[i] * prices[i] + tags[i].length();
+    return sum;
+  }
+
+}
@@ -0,0 +1,321 @@
+/**
+ * Generates text corpora of any size for benchmarks and stress tests. The data is
+ * produced line by line as it is read, so a corpus of many gigabytes can be streamed
+ * straight into an InputReader without ever being held in memory or written to disk,
+ * and the same seed always yields the same bytes, on any JVM.
+ *
+ * It is shared by the tests and the JMH benchmarks. To write a corpus to a file from
+ * the command line:
+ * $ java testfixtures.com.williamfiset.fastjavaio.DataGenerator doubles 4G doubles.txt
+ *
+ * @author William Fiset
+ **/
+package testfixtures.com.williamfiset.fastjavaio;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Random;
+
+public class DataGenerator extends InputStream {
+
+  public enum Corpus {
+
+    // Lines of 20 ints of every width from 1 to 11 characters
+    INTS(20),
+
+    // Lines of 20 longs of every width from 1 to 20 characters
+    LONGS(20),
+
+    // Lines of 10 doubles in plain (3.25), exponent (-1.5e-7) and long mantissa (0.1234567890123456789012) forms
+    DOUBLES(10),
+
+    // Lines of 20 tokens, each an int, a long, a double or a word
+    MIXED(20),
+
+    // Lines of 20 words of 1 to 16 letters
+    WORDS(20),
+
+    // Lines of words between 1KB and 64KB long, longer than the InputReader's default buffer
+    LONG_LINES(0);
+
+    // The number of tokens on each line, or 0 if it varies
+    public final int tokensPerLine;
+
+    Corpus(int tokensPerLine) {
+      this.tokensPerLine = tokensPerLine;
+    }
+
+  }
+
+  // How wide the tokens of a corpus are. Long lines always have words of 1 to 16 letters.
+  public enum Width {
+
+    // Numbers and words of 1 to 3 characters, and doubles such as 4.2
+    SHORT,
+
+    // Every width, as described by each corpus
+    MIXED,
+
+    // The widest values: 10 digit ints, 19 digit longs, long mantissa doubles and words of 32 to 127 letters
+    LONG
+
+  }
+
+  public static final long DEFAULT_SEED = 0;
+
+  private static final byte[] LF = {'\n'}, CRLF = {'\r', '\n'};
+
+  private static final byte[] LETTERS =
+    "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes();
+
+  private final Corpus corpus;
+  private final Width width;
+  private final long size;
+  private final Random random;
+  private final byte[] lineSeparator;
+
+  // The line currently being read and the number of bytes generated so far
+  private byte[] line = new byte[1 << 12];
+  private int pos, length;
+  private long generated;
+
+  /**
+   * Create a stream of at least size bytes of the corpus, ending in '\n'.
+   */
+  public DataGenerator(Corpus corpus, long size) {
+    this(corpus, size, DEFAULT_SEED, false);
+  }
+
+  /**
+   * Create a stream of a corpus.
+   * @param corpus        The kind of data to generate.
+   * @param size          The number of bytes to generate. The stream stops at the end
+   *                      of the line which reaches this size.
+   * @param seed          The seed of the random data.
+   * @param crlf          Whether lines end in "\r\n" instead of "\n".
+   */
+  public DataGenerator(Corpus corpus, long size, long seed, boolean crlf) {
+    this(corpus, Width.MIXED, size, seed, crlf);
+  }
+
+  /**
+   * Create a stream of a corpus whose tokens all have the given width.
+   */
+  public DataGenerator(Corpus corpus, Width width, long size, long seed, boolean crlf) {
+    if (corpus == null || width == null || size < 0) throw new IllegalArgumentException();
+    this.corpus = corpus;
+    this.width = width;
+    this.size = size;
+    this.random = new Random(seed);
+    this.lineSeparator = crlf ? CRLF : LF;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (pos == length && !nextLine()) return -1;
+    return line[pos++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+    if (len == 0) return 0;
+    int n = 0;
+    while (n < len) {
+      if (pos == length && !nextLine()) break;
+      int k = Math.min(len - n, length - pos);
+      System.arraycopy(line, pos, b, off + n, k);
+      pos += k;
+      n += k;
+    }
+    return n == 0 ? -1 : n;
+  }
+
+  // Generates the next line, or returns false once size bytes have been generated
+  private boolean nextLine() {
+    if (generated >= size) return false;
+    pos = length = 0;
+    switch (corpus) {
+      case INTS:
+        for (int i = 0; i < corpus.tokensPerLine; i++) {
+          if (i > 0) append(' ');
+          appendInt();
+        }
+        break;
+      case LONGS:
+        for (int i = 0; i < corpus.tokensPerLine; i++) {
+          if (i > 0) append(' ');
+          appendLong();
+        }
+        break;
+      case DOUBLES:
+        for (int i = 0; i < corpus.tokensPerLine; i++) {
+          if (i > 0) append(' ');
+          appendDouble();
+        }
+        break;
+      case MIXED:
+        for (int i = 0; i < corpus.tokensPerLine; i++) {
+          if (i > 0) append(' ');
+          switch (random.nextInt(4)) {
+            case 0: appendInt(); break;
+            case 1: appendLong(); break;
+            case 2: appendDouble(); break;
+            default: appendWord(wordLength());
+          }
+        }
+        break;
+      case WORDS:
+        for (int i = 0; i < corpus.tokensPerLine; i++) {
+          if (i > 0) append(' ');
+          appendWord(wordLength());
+        }
+        break;
+      case LONG_LINES:
+        int lineLength = 1024 + random.nextInt(63 * 1024);
+        appendWord(1 + random.nextInt(16));
+        while (length < lineLength) {
+          append(' ');
+          appendWord(1 + random.nextInt(16));
+        }
+        break;
+    }
+    for (byte b : lineSeparator) append(b);
+    generated += length;
+    return true;
+  }
+
+  private void append(int b) {
+    if (length == line.length) line = Arrays.copyOf(line, length * 2);
+    line[length++] = (byte) b;
+  }
+
+  private void appendInt() {
+    switch (width) {
+      case SHORT: appendNumber(random.nextInt(1000)); break;
+      case LONG: appendNumber(random.nextInt() | 1 << 30); break;
+      default: appendNumber(random.nextInt() >> random.nextInt(32));
+    }
+  }
+
+  private void appendLong() {
+    switch (width) {
+      case SHORT: appendNumber(random.nextInt(1000)); break;
+      case LONG: appendNumber(random.nextLong() | 1L << 62); break;
+      default: appendNumber(random.nextLong() >> random.nextInt(64));
+    }
+  }
+
+  private int wordLength() {
+    switch (width) {
+      case SHORT: return 1 + random.nextInt(3);
+      case LONG: return 32 + random.nextInt(96);
+      default: return 1 + random.nextInt(16);
+    }
+  }
+
+  // Appends the decimal digits of v, working with negative values so MIN_VALUE fits
+  private void appendNumber(long v) {
+    if (v < 0) append('-');
+    else v = -v;
+    int start = length;
+    do {
+      append('0' - (int) (v % 10));
+      v /= 10;
+    } while (v != 0);
+    for (int i = start, j = length - 1; i < j; i++, j--) {
+      byte t = line[i];
+      line[i] = line[j];
+      line[j] = t;
+    }
+  }
+
+  // Appends n random digits, the first of which is not zero
+  private void appendDigits(int n) {
+    append('1' + random.nextInt(9));
+    for (int i = 1; i < n; i++) append('0' + random.nextInt(10));
+  }
+
+  private void appendDouble() {
+    if (width == Width.SHORT) {
+      append('0' + random.nextInt(10));
+      append('.');
+      append('0' + random.nextInt(10));
+      return;
+    }
+    if (random.nextInt(4) == 0) append('-');
+    switch (width == Width.LONG ? 2 : random.nextInt(3)) {
+
+      // Plain: 0.5, 1234.125...
+      case 0:
+        if (random.nextInt(4) == 0) append('0');
+        else appendDigits(1 + random.nextInt(6));
+        append('.');
+        for (int i = 1 + random.nextInt(6); i > 0; i--) append('0' + random.nextInt(10));
+        break;
+
+      // Exponent: 6.02214076E23, 1e-300...
+      case 1:
+        appendDigits(1);
+        int digits = random.nextInt(17);
+        if (digits > 0) {
+          append('.');
+          for (int i = 0; i < digits; i++) append('0' + random.nextInt(10));
+        }
+        append(random.nextBoolean() ? 'e' : 'E');
+        int exponent = random.nextInt(601) - 300;
+        if (exponent < 0) append('-');
+        else if (random.nextBoolean()) append('+');
+        appendNumber(Math.abs(exponent));
+        break;
+
+      // Long mantissa: more significant digits than a double holds
+      default:
+        int n = 18 + random.nextInt(13), whole = random.nextInt(n);
+        if (whole == 0) append('0');
+        else appendDigits(whole);
+        append('.');
+        for (int i = whole; i < n; i++) append('0' + random.nextInt(10));
+        break;
+    }
+  }
+
+  private void appendWord(int n) {
+    for (int i = 0; i < n; i++) append(LETTERS[random.nextInt(LETTERS.length)]);
+  }
+
+  /**
+   * Writes a corpus to a file.
+   */
+  public static void write(Path file, Corpus corpus, long size, long seed, boolean crlf) throws IOException {
+    byte[] buf = new byte[1 << 16];
+    try (InputStream in = new DataGenerator(corpus, size, seed, crlf);
+         OutputStream out = Files.newOutputStream(file)) {
+      for (int n; (n = in.read(buf)) != -1;) out.write(buf, 0, n);
+    }
+  }
+
+  // Parses a size such as 65536, 64K, 512M or 4G
+  static long parseSize(String s) {
+    long unit = 1;
+    switch (Character.toUpperCase(s.charAt(s.length() - 1))) {
+      case 'K': unit = 1L << 10; break;
+      case 'M': unit = 1L << 20; break;
+      case 'G': unit = 1L << 30; break;
+    }
+    return Long.parseLong(unit == 1 ? s : s.substring(0, s.length() - 1)) * unit;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.err.println("Usage: DataGenerator <ints|longs|doubles|mixed|words|long_lines> <size> <file> [seed] [--crlf]");
+      System.exit(1);
+    }
+    Corpus corpus = Corpus.valueOf(args[0].toUpperCase());
+    long seed = args.length > 3 && !args[3].equals("--crlf") ? Long.parseLong(args[3]) : DEFAULT_SEED;
+    boolean crlf = args[args.length - 1].equals("--crlf");
+    write(Paths.get(args[2]), corpus, parseSize(args[1]), seed, crlf);
+  }
+
+}